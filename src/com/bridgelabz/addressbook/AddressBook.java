@@ -1,6 +1,8 @@
 package com.bridgelabz.addressbook;
 import java.util.*;
 import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 
 /**
  * @desc Class that represents creation of address book
@@ -11,10 +13,32 @@ public class AddressBook {
     private static final String  ENTITY_CASE_STATE="State";
     private static final String ENTITY_CASE_ZIPCODE="ZipCode";
     private static final String CONTACTS_DIRECTORY = "Contacts";
+    // Contacts fetched at a time when listing an Address Book by name
+    private static final int PAGE_SIZE = 1024;
+    // Run with -Daddressbook.journal=true to append changes to a log instead of rewriting the file after each session
+    private static final boolean JOURNAL_MODE = Boolean.getBoolean("addressbook.journal");
+    // Run with -Daddressbook.preload=true to load every Address Book in the Contacts directory at startup,
+    // -Daddressbook.loadThreads sets how many are loaded at once
+    private static final boolean PRELOAD = Boolean.getBoolean("addressbook.preload");
+    private static final int LOAD_THREADS = Integer.getInteger("addressbook.loadThreads", Runtime.getRuntime().availableProcessors());
+    // Run with -Daddressbook.cacheMegabytes=N to keep only as many Address Books in memory as fit in N megabytes,
+    // reading the others from the Contacts directory when they are used. Ignored in journal mode.
+    private static final long CACHE_MEGABYTES = Long.getLong("addressbook.cacheMegabytes", 0);
 
 
     public static void main(String[] args) {
 
+        // "--server [port] [host]" serves the Address Books as JSON over HTTP instead of showing the menus
+        if (args.length > 0 && "--server".equals(args[0])) {
+            try {
+                AddressBookServer.main(Arrays.copyOfRange(args, 1, args.length));
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.out.println("Failed to start the Address Book server.");
+            }
+            return;
+        }
+
         // Create Contacts directory if it doesn't exist
         File contactsDirectory = new File(CONTACTS_DIRECTORY);
         if (!contactsDirectory.exists()) {
@@ -29,8 +53,14 @@ public class AddressBook {
 
         Scanner scanner = new Scanner(System.in);
 
-        // Create an AddressBookSystem
-        AddressBookSystem addressBookSystem = new AddressBookSystem();
+        // Create the service over an AddressBookSystem; the menus below only read input and print results
+        AddressBookService service = new AddressBookService(CACHE_MEGABYTES * 1024 * 1024, JOURNAL_MODE);
+        // Publish call counts, latencies and book sizes for jconsole and other JMX clients
+        AddressBookMetrics.getDefault().registerMBean();
+
+        if (PRELOAD) {
+            printPreload(service.loadAllAddressBooks(LOAD_THREADS));
+        }
 
         int choice;
 
@@ -50,28 +80,57 @@ public class AddressBook {
                     // Add a new Address Book
                     System.out.print("Enter the name of the new Address Book: ");
                     String newAddressBookName = scanner.next();
-                    addressBookSystem.addAddressBook(newAddressBookName);
+                    switch (service.createAddressBook(newAddressBookName)) {
+                        case CREATED:
+                            System.out.println("Address Book '" + newAddressBookName + "' added to the system.");
+                            break;
+                        case INVALID:
+                            System.out.println("Invalid Address Book name. Use only letters, digits, spaces, '_' and '-'.");
+                            break;
+                        default:
+                            System.out.println("An Address Book with the name '" + newAddressBookName + "' already exists.");
+                    }
                     break;
 
                 case 2:
                     // View all Address Books in the system
-                    addressBookSystem.displayAllAddressBooks();
+                    System.out.println("Address Books in the System:");
+                    service.listAddressBooks().forEach(System.out::println);
+                    System.out.println("-------------------------");
                     break;
 
                 case 3:
                     // Work with an Address Book
                     System.out.print("Enter the name of the Address Book to work with: ");
                     String selectedAddressBookName = scanner.next();
-                    AddressBookList selectedAddressBook = addressBookSystem.getAddressBook(selectedAddressBookName);
-
-                    if (selectedAddressBook != null) {
-                        // Load contacts from file when working with an existing Address Book
-                        selectedAddressBook.loadFromFile(selectedAddressBookName);
-                        workWithAddressBook(selectedAddressBook, scanner);
-                        // Save contacts to file when exiting the Address Book
-                        selectedAddressBook.saveToFile(selectedAddressBookName);
-                    } else {
+                    // Load contacts from file, or replay the journal, the first time an Address Book is worked with
+                    ServiceResult<ImportSummary> opened = service.openAddressBook(selectedAddressBookName);
+                    if (opened.getStatus() == ServiceStatus.BOOK_NOT_FOUND) {
                         System.out.println("Address Book not found.");
+                        break;
+                    }
+                    if (opened.getStatus() == ServiceStatus.INVALID) {
+                        System.out.println("Invalid Address Book name. Use only letters, digits, spaces, '_' and '-'.");
+                        break;
+                    }
+                    if (!opened.isOk()) {
+                        if (opened.getError() != null) {
+                            opened.getError().printStackTrace();
+                        }
+                        System.out.println(JOURNAL_MODE ? "Failed to access the journal of the Address Book."
+                                : "Failed to load contacts from file.");
+                        break;
+                    }
+                    if (opened.getValue() != null) {
+                        System.out.println("Contacts loaded successfully from file: " + opened.getValue() + ".");
+                    }
+                    workWithAddressBook(selectedAddressBookName, service, scanner);
+                    // Save contacts to file when exiting the Address Book; in journal mode only the changes
+                    // made in this session are written
+                    if (service.saveAddressBook(selectedAddressBookName) != ServiceStatus.OK) {
+                        System.out.println("Failed to save contacts to file.");
+                    } else if (!JOURNAL_MODE) {
+                        System.out.println("Contacts saved successfully to file.");
                     }
                     break;
 
@@ -79,16 +138,14 @@ public class AddressBook {
                     // Search persons in a city
                     System.out.print("Enter the city to search for: ");
                     String city = scanner.next();
-                    List<Contact> personsInCity = addressBookSystem.getContactsInCity(city);
-                    displaySearchResults(personsInCity);
+                    displaySearchResults(service.streamInCity(city).iterator());
                     break;
 
                 case 5:
                     // Search persons in a state
                     System.out.print("Enter the state to search for: ");
                     String state = scanner.next();
-                    List<Contact> personsInState = addressBookSystem.getContactsInState(state);
-                    displaySearchResults(personsInState);
+                    displaySearchResults(service.streamInState(state).iterator());
                     break;
 
                 case 6:
@@ -102,18 +159,24 @@ public class AddressBook {
 
         } while (choice != 6);
 
+        try {
+            service.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Failed to close the journal of an Address Book.");
+        }
         scanner.close();
     }
 
     /**
      * @desc Performs operations on the specified Address Book.
      *
-     * @param addressBook The AddressBook to work with.
-     * @param scanner     The Scanner object for user input.
+     * @param addressBookName The name of the AddressBook to work with.
+     * @param service         The service holding the AddressBook.
+     * @param scanner         The Scanner object for user input.
      */
-    private static void workWithAddressBook(AddressBookList addressBook, Scanner scanner) {
+    private static void workWithAddressBook(String addressBookName, AddressBookService service, Scanner scanner) {
         int choice;
-        AddressBookSystem addressBookSystem = new AddressBookSystem();
 
         do {
             // Display menu
@@ -128,7 +191,8 @@ public class AddressBook {
             System.out.println("9. Sort Contacts By City");
             System.out.println("10. Sort Contacts By State");
             System.out.println("11. Sort Contacts By ZipCode");
-            System.out.println("12. Exit");
+            System.out.println("12. Import contacts from a CSV file");
+            System.out.println("13. Exit");
             System.out.print("Enter your choice: ");
             choice = scanner.nextInt();
 
@@ -137,6 +201,7 @@ public class AddressBook {
                     // Add multiple persons to the address book
                     System.out.print("Enter the number of persons to add: ");
                     int numberOfPersons = scanner.nextInt();
+                    List<Contact> newContacts = new ArrayList<>(numberOfPersons);
 
                     for (int i = 0; i < numberOfPersons; i++) {
                         System.out.println("Enter Contact Information for Person " + (i + 1) + ":");
@@ -167,21 +232,29 @@ public class AddressBook {
                         // Create a new contact
                         Contact newContact = new Contact(newFirstName, newLastName, newAddress, newCity, newState, newZip, newPhoneNumber, newEmail);
 
-                        // Add the new contact to the address book
-                        addressBook.addContact(newContact);
+                        newContacts.add(newContact);
                     }
+                    // Add all the new contacts to the address book at once, skipping duplicates
+                    ServiceResult<ImportSummary> added = service.addContacts(addressBookName, newContacts.stream());
+                    System.out.println("Contacts: " + (added.isOk() ? added.getValue() : added.getStatus()));
                     break;
 
                 case 2:
                     // View all contacts in the address book
                     //addressBook.displayAllContacts();
 
-                    // Sort contacts alphabetically by name
-                    addressBook.sortByName();
-
-                    // Print sorted address book
+                    // Print the contacts alphabetically by name, a page at a time off the name index
                     System.out.println("Sorted Address Book:");
-                    System.out.println(addressBook);
+                    String cursor = null;
+                    do {
+                        ServiceResult<ContactPage> page = service.pageContacts(addressBookName, cursor, PAGE_SIZE);
+                        if (!page.isOk()) {
+                            break;
+                        }
+                        page.getValue().getContacts().forEach(System.out::println);
+                        cursor = page.getValue().getNextCursor();
+                    } while (cursor != null);
+                    System.out.println();
                     break;
 
                 case 3:
@@ -193,7 +266,40 @@ public class AddressBook {
                     System.out.print("Last Name: ");
                     String editLastName = scanner.next();
 
-                    addressBook.editContact(editFirstName, editLastName);
+                    if (!service.getContact(addressBookName, editFirstName, editLastName).isOk()) {
+                        System.out.println("Contact not found. Unable to edit.");
+                        break;
+                    }
+                    System.out.println("Enter new information for the contact:");
+                    System.out.print("Address: ");
+                    String address = scanner.next();
+
+                    System.out.print("City: ");
+                    String newCityName = scanner.next();
+
+                    System.out.print("State: ");
+                    String newStateName = scanner.next();
+
+                    System.out.print("ZIP Code: ");
+                    String zip = scanner.next();
+
+                    System.out.print("Phone Number: ");
+                    String phoneNumber = scanner.next();
+
+                    System.out.print("Email: ");
+                    String email = scanner.next();
+
+                    ContactUpdate update = new ContactUpdate(address, newCityName, newStateName, zip, phoneNumber, email);
+                    switch (service.editContact(addressBookName, editFirstName, editLastName, update)) {
+                        case OK:
+                            System.out.println("Contact updated successfully.");
+                            break;
+                        case INVALID:
+                            System.out.println("Invalid contact details. Unable to edit.");
+                            break;
+                        default:
+                            System.out.println("Contact not found. Unable to edit.");
+                    }
                     break;
 
                 case 4:
@@ -205,14 +311,18 @@ public class AddressBook {
                     System.out.print("Last Name: ");
                     String deleteLastName = scanner.next();
 
-                    addressBook.deleteContact(deleteFirstName, deleteLastName);
+                    if (service.deleteContact(addressBookName, deleteFirstName, deleteLastName) == ServiceStatus.OK) {
+                        System.out.println("Contact deleted successfully.");
+                    } else {
+                        System.out.println("Contact not found. Unable to delete.");
+                    }
                     break;
 
                 case 5:
                     // View persons by city
                     System.out.print("Enter the city to view persons for: ");
                     String cityToView = scanner.next();
-                    List<Contact> personsByCity = addressBookSystem.viewPersonsByCity(cityToView);
+                    List<Contact> personsByCity = service.findInCity(cityToView);
                     displaySearchResults(personsByCity);
                     break;
 
@@ -220,38 +330,58 @@ public class AddressBook {
                     // View persons by state
                     System.out.print("Enter the state to view persons for: ");
                     String stateToView = scanner.next();
-                    List<Contact> personsByState = addressBookSystem.viewPersonsByState(stateToView);
+                    List<Contact> personsByState = service.findInState(stateToView);
                     displaySearchResults(personsByState);
                     break;
 
                 case 7:
                     // Get count of contact persons by city
-                    Map<String, Long> countByCity = addressBookSystem.getCountByCity();
+                    Map<String, Long> countByCity = service.countByCity();
                     displayCountResults(countByCity, ENTITY_CASE_CITY);
                     break;
 
                 case 8:
                     // Get count of contact persons by state
-                    Map<String, Long> countByState = addressBookSystem.getCountByState();
+                    Map<String, Long> countByState = service.countByState();
                     displayCountResults(countByState, ENTITY_CASE_STATE);
                     break;
 
                 case 9:
-                    List<Contact> sortedByCity = addressBook.sortByCity();
-                    addressBook.printSorted(sortedByCity,ENTITY_CASE_CITY);
+                    displaySorted(service.listContacts(addressBookName, ContactField.CITY), ENTITY_CASE_CITY);
                     break;
 
                 case 10:
-                    List<Contact> sortedByState = addressBook.sortByState();
-                    addressBook.printSorted(sortedByState,ENTITY_CASE_STATE);
+                    displaySorted(service.listContacts(addressBookName, ContactField.STATE), ENTITY_CASE_STATE);
                     break;
 
                 case 11:
-                    List<Contact> sortedByZipCode = addressBook.sortByZip();
-                    addressBook.printSorted(sortedByZipCode,ENTITY_CASE_ZIPCODE);
+                    displaySorted(service.listContacts(addressBookName, ContactField.ZIP), ENTITY_CASE_ZIPCODE);
                     break;
 
                 case 12:
+                    // Import contacts saved by another Address Book or exported from elsewhere
+                    System.out.print("Enter the path of the CSV file: ");
+                    String importPath = scanner.next();
+                    ServiceResult<ImportSummary> imported = service.importContacts(addressBookName, new File(importPath));
+                    switch (imported.getStatus()) {
+                        case OK:
+                            System.out.println("Contacts imported: " + imported.getValue());
+                            break;
+                        case BOOK_NOT_FOUND:
+                            System.out.println("Address Book not found.");
+                            break;
+                        case INVALID:
+                            System.out.println("Invalid Address Book name.");
+                            break;
+                        default:
+                            if (imported.getError() != null) {
+                                imported.getError().printStackTrace();
+                            }
+                            System.out.println("Failed to import contacts from file.");
+                    }
+                    break;
+
+                case 13:
                     System.out.println("Exiting Address Book. Returning to the main menu.");
                     break;
 
@@ -260,7 +390,7 @@ public class AddressBook {
                     break;
             }
 
-        } while (choice != 12);
+        } while (choice != 13);
     }
 
     /**
@@ -268,12 +398,51 @@ public class AddressBook {
      * @param searchResults The list of contacts to display.
      */
     private static void displaySearchResults(List<Contact> searchResults) {
+        displaySearchResults(searchResults.iterator());
+    }
+
+    /**
+     * @desc Helper method to display search results as they are produced.
+     * @param searchResults The contacts to display.
+     */
+    private static void displaySearchResults(Iterator<Contact> searchResults) {
         System.out.println("Search Results:");
-        if (searchResults.isEmpty()) {
+        if (!searchResults.hasNext()) {
             System.out.println("No matching persons found.");
         } else {
-            for (Contact contact : searchResults) {
-                contact.displayContact();
+            while (searchResults.hasNext()) {
+                searchResults.next().displayContact();
+                System.out.println("-------------------------");
+            }
+        }
+    }
+
+    /**
+     * @desc Prints how many Address Books were loaded at startup, or which failed to load.
+     * @param preloaded The result of AddressBookService.loadAllAddressBooks.
+     */
+    static void printPreload(ServiceResult<List<String>> preloaded) {
+        if (preloaded.isOk()) {
+            System.out.printf("Loaded %d Address Books; ready %d ms after startup.%n", preloaded.getValue().size(),
+                    ManagementFactory.getRuntimeMXBean().getUptime());
+        } else if (preloaded.getError() != null) {
+            preloaded.getError().printStackTrace();
+            System.out.println(preloaded.getError().getMessage());
+        } else {
+            System.out.println("Failed to load the Address Books: " + preloaded.getStatus());
+        }
+    }
+
+    /**
+     * @desc Helper method to display the contacts of an Address Book in a sorted order.
+     * @param sorted     The sorted contacts.
+     * @param entityType The field they are sorted by.
+     */
+    private static void displaySorted(ServiceResult<List<Contact>> sorted, String entityType) {
+        System.out.println("Contacts Sorted by " + entityType + ":");
+        if (sorted.isOk()) {
+            for (Contact contact : sorted.getValue()) {
+                System.out.println(contact);
                 System.out.println("-------------------------");
             }
         }
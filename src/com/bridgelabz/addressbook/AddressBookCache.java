@@ -0,0 +1,134 @@
+package com.bridgelabz.addressbook;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @desc Keeps the Address Books of a system within a memory budget. Books are read from the Contacts directory
+ *       on first use; once the contacts in memory would take more than the budget, the least recently used books
+ *       are saved if they changed and unloaded until the rest fit. An unloaded book is the same AddressBookList
+ *       object as before and is read back transparently on its next use, so callers may keep references to books
+ *       across unloads. A book whose changes cannot be saved stays loaded and is counted by the cache.failedUnloads
+ *       gauge.
+ *
+ *       A book is weighed by its number of contacts times ESTIMATED_CONTACT_BYTES, which covers the contact, its
+ *       strings and its entries in the indexes of the book. A book in use by another thread is never unloaded,
+ *       so the budget may be exceeded while many books are in use at once.
+ *
+ *       Unloading and loading a book is reported to its listeners as every contact being removed and added
+ *       again, so books with a ContactJournal must not be kept by a cache.
+ */
+final class AddressBookCache {
+    // Retained heap per contact of loaded books of 200 contacts, about 1.3 KB when measured, rounded up
+    static final long ESTIMATED_CONTACT_BYTES = 1536;
+
+    private final long budgetBytes;
+    private final Set<AddressBookList> books = ConcurrentHashMap.newKeySet();
+    private final LongAdder residentContacts = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder unloads = new LongAdder();
+    private final LongAdder failedUnloads = new LongAdder();
+    // Keeps residentContacts current through every add, delete, load and unload
+    private final AddressBookListener counter = new AddressBookListener() {
+        @Override
+        public void contactAdded(Contact contact) {
+            residentContacts.increment();
+        }
+
+        @Override
+        public void contactRemoved(Contact contact) {
+            residentContacts.decrement();
+        }
+    };
+
+    /**
+     * @param budgetBytes The most heap the contacts in memory should take.
+     */
+    AddressBookCache(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Memory budget must be positive: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        AddressBookMetrics metrics = AddressBookMetrics.getDefault();
+        metrics.registerGauge("cache.budgetBytes", () -> budgetBytes);
+        metrics.registerGauge("cache.residentContacts", residentContacts::sum);
+        metrics.registerGauge("cache.loads", loads::sum);
+        metrics.registerGauge("cache.unloads", unloads::sum);
+        metrics.registerGauge("cache.failedUnloads", failedUnloads::sum);
+    }
+
+    /**
+     * @desc Starts managing a book.
+     * @param book     The book, with no contacts yet.
+     * @param name     The name of the book, which names its file.
+     * @param unloaded Whether the book is to be read from its file on first use.
+     */
+    void add(AddressBookList book, String name, boolean unloaded) {
+        book.addListener(counter);
+        book.keepIn(this, name, unloaded);
+        books.add(book);
+    }
+
+    /**
+     * @desc Called by a book that has just been read back, while it holds its write lock. Makes room for it by
+     *       unloading other books.
+     * @param book The book that was read.
+     */
+    void loaded(AddressBookList book) {
+        loads.increment();
+        trim(book);
+    }
+
+    /**
+     * @desc Unloads the least recently used books until the contacts in memory fit in the budget. Cheap when
+     *       they already fit.
+     * @param keep A book not to unload, or null.
+     */
+    void trim(AddressBookList keep) {
+        if (!overBudget()) {
+            return;
+        }
+        // Access times are read once, since books keep being used while they are sorted
+        List<Candidate> candidates = new ArrayList<>();
+        for (AddressBookList book : books) {
+            if (book != keep && !book.isUnloaded()) {
+                candidates.add(new Candidate(book, book.getLastAccess()));
+            }
+        }
+        candidates.sort(Comparator.comparingLong(candidate -> candidate.lastAccess));
+        // Threads trimming at once are not serialized, so saves run in parallel; each stops as soon as the
+        // books fit, so together they unload at most one book each more than needed
+        for (Candidate candidate : candidates) {
+            if (!overBudget()) {
+                return;
+            }
+            try {
+                if (candidate.book.unload()) {
+                    unloads.increment();
+                }
+            } catch (IOException e) {
+                // The book could not be saved and stays in memory; the next one is tried instead
+                failedUnloads.increment();
+            }
+        }
+    }
+
+    private boolean overBudget() {
+        return residentContacts.sum() * ESTIMATED_CONTACT_BYTES > budgetBytes;
+    }
+
+    private static final class Candidate {
+        private final AddressBookList book;
+        private final long lastAccess;
+
+        private Candidate(AddressBookList book, long lastAccess) {
+            this.book = book;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bridgelabz.addressbook;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @desc Converts address books between the CSV import/export format and the binary format read by MappedAddressBook.
+ *       A binary file written as Contacts/{name}.abk is read instead of Contacts/{name}.txt when the book is loaded,
+ *       for as long as it is the newer of the two. Address Books are still found by their CSV files.
+ */
+public class AddressBookFileConverter {
+
+    private AddressBookFileConverter() {
+    }
+
+    /**
+     * @desc Converts a CSV address book into the binary format. Rows repeating a name already seen are dropped,
+     *       the same way loadFromFile drops duplicates.
+     * @param csvFile    The CSV file to read.
+     * @param binaryFile The binary file to write.
+     * @return The number of contacts written.
+     * @throws IOException If either file cannot be accessed.
+     */
+    public static int csvToBinary(Path csvFile, Path binaryFile) throws IOException {
+        Map<Contact, Contact> contacts = new LinkedHashMap<>();
+        try (ContactCsvReader reader = new ContactCsvReader(Files.newBufferedReader(csvFile, StandardCharsets.UTF_8))) {
+            Contact contact;
+            while ((contact = reader.next()) != null) {
+                contacts.putIfAbsent(contact, contact);
+            }
+        }
+        MappedAddressBook.write(binaryFile, contacts.values());
+        return contacts.size();
+    }
+
+    /**
+     * @desc Converts a binary address book back into CSV.
+     * @param binaryFile The binary file to read.
+     * @param csvFile    The CSV file to write.
+     * @return The number of contacts written.
+     * @throws IOException If either file cannot be accessed.
+     */
+    public static int binaryToCsv(Path binaryFile, Path csvFile) throws IOException {
+        try (MappedAddressBook book = MappedAddressBook.open(binaryFile);
+             ContactCsvWriter writer = new ContactCsvWriter(
+                     new OutputStreamWriter(Files.newOutputStream(csvFile), StandardCharsets.UTF_8))) {
+            for (int record = 0; record < book.size(); record++) {
+                writer.write(book.get(record));
+            }
+            return book.size();
+        }
+    }
+
+    /**
+     * @desc Command line entry point. Usage: AddressBookFileConverter (csv2bin|bin2csv) source target
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("Usage: AddressBookFileConverter (csv2bin|bin2csv) <source> <target>");
+            return;
+        }
+        Path source = Paths.get(args[1]);
+        Path target = Paths.get(args[2]);
+        int converted;
+        switch (args[0]) {
+            case "csv2bin":
+                converted = csvToBinary(source, target);
+                break;
+            case "bin2csv":
+                converted = binaryToCsv(source, target);
+                break;
+            default:
+                System.out.println("Unknown conversion: " + args[0]);
+                return;
+        }
+        System.out.println("Converted " + converted + " contacts to " + target + ".");
+    }
+}
@@ -1,28 +1,100 @@
 package com.bridgelabz.addressbook;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.Comparator;
 import java.util.List;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * @desc The AddressBook class represents a collection of contacts.
  *       It provides methods to add a new contact, display all contacts,
  *       edit an existing contact, delete a contact using their name,
  *       and add multiple persons to the address book.
+ *       All methods are thread-safe: index lookups share a read lock and changes take the write lock of the book.
+ *       Listings, sorts and saves run without locking against an immutable point-in-time snapshot of the
+ *       contacts, so they never see a half-applied change and never block writers. A snapshot is built
+ *       on the first read after a change and reclaimed by the garbage collector once no reader holds it.
+ *       A book kept by an AddressBookCache may be unloaded between uses; taking either lock reads it back first.
  */
 public class AddressBookList {
-    // List to store contacts
-    private List<Contact> contacts;
+    // Contacts keyed on first and last name, kept in insertion or sorted order
+    private ContactStore contacts;
+    // Secondary indexes from city, state and ZIP code to the contacts living there, kept in key order
+    // so that they double as sorted views
+    private NavigableMap<String, Set<Contact>> contactsByCity;
+    private NavigableMap<String, Set<Contact>> contactsByState;
+    private NavigableMap<String, Set<Contact>> contactsByZip;
+    // All contacts in name order
+    private NavigableSet<Contact> contactsByName;
+    // Prefix and typo-tolerant search over names, phone numbers and emails
+    private final NameSearchIndex nameSearch = new NameSearchIndex();
+    // Orders contacts by name, falling back to case-sensitive order so that names differing only in case are kept apart
+    private static final Comparator<Contact> NAME_ORDER = Comparator.<Contact>naturalOrder()
+            .thenComparing(contact -> contact.firstName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(contact -> contact.lastName, Comparator.nullsFirst(Comparator.naturalOrder()));
+    private static final Comparator<String> KEY_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    // Listeners notified of every contact entering or leaving the book
+    private final List<AddressBookListener> listeners = new CopyOnWriteArrayList<>();
+    // Guards the contact store and the secondary indexes. Listeners are notified while the write lock is held.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Latest snapshot of the contacts, or null once a change has made it stale
+    private volatile Snapshot snapshot;
+    // Incremented on every change, under the write lock; volatile so getVersion can read it without the lock
+    private volatile long version;
     private static final String FILE_EXTENSION = ".txt";
+    private static final String BINARY_FILE_EXTENSION = ".abk";
     private static final String CONTACTS_DIRECTORY = "Contacts";
+    // Rough size of one CSV row, used to pre-size the contact store when loading a file
+    private static final int ESTIMATED_CSV_ROW_BYTES = 64;
+    // Largest edit distance accepted by fuzzy name search
+    static final int MAX_EDIT_DISTANCE = 2;
+    // Contacts fetched at a time by streamByName
+    private static final int STREAM_PAGE_SIZE = 1024;
+    private static final AddressBookMetrics METRICS = AddressBookMetrics.getDefault();
+    // Run with -Daddressbook.offHeap=true to keep the contacts of every book in an OffHeapContactStore
+    private static final boolean OFF_HEAP = Boolean.getBoolean("addressbook.offHeap");
+    // Set when the book is kept by an AddressBookCache, which unloads it to stay within its memory budget
+    private volatile AddressBookCache cache;
+    private String cacheName;
+    // What is known of the contents of the book while the cache has it unloaded, or null while it is in memory
+    private volatile Unloaded unloaded;
+    // When the book was last used, for picking the least recently used book to unload
+    private volatile long lastAccess;
+    // Version of the contents last written to or read from the file of the book
+    private volatile long savedVersion;
 
     /**
      * @desc Constructs a new AddressBook with an empty list of contacts.
      */
     public AddressBookList() {
-        contacts = new ArrayList<>();
+        this(OFF_HEAP ? new OffHeapContactStore() : new HeapContactStore());
+    }
+
+    /**
+     * @desc Constructs a new AddressBook keeping its contacts in the given store.
+     * @param store An empty contact store.
+     */
+    AddressBookList(ContactStore store) {
+        contacts = store;
+        contactsByCity = new TreeMap<>(KEY_ORDER);
+        contactsByState = new TreeMap<>(KEY_ORDER);
+        contactsByZip = new TreeMap<>(KEY_ORDER);
+        contactsByName = new TreeSet<>(NAME_ORDER);
+    }
+
+    /**
+     * @desc Registers a listener that is notified whenever a contact is added, edited or deleted.
+     *
+     * @param listener The listener to register.
+     */
+    public void addListener(AddressBookListener listener) {
+        listeners.add(listener);
     }
 
     /**
@@ -31,23 +103,32 @@ public class AddressBookList {
      * @param contact The contact to be added.
      */
     public void addContact(Contact contact) {
-        // Check for duplicate using Java streams
-        boolean isDuplicate = contacts.stream().anyMatch(c -> c.equals(contact));
-
-        if (isDuplicate) {
+        if (!add(contact)) {
             System.out.println("Duplicate entry! This contact already exists in the address book.");
         } else {
-            contacts.add(contact);
             System.out.println("Contact added to the address book.");
         }
     }
 
+    /**
+     * @desc Adds a new contact unless one with the same name exists, without printing anything.
+     * @param contact The contact to be added.
+     * @return True if the contact was added, false if it is a duplicate.
+     */
+    boolean add(Contact contact) {
+        // Check for duplicate using the name index
+        long start = METRICS.start();
+        boolean added = insert(contact);
+        METRICS.record(AddressBookMetrics.Operation.ADD, start);
+        return added;
+    }
+
     /**
      * @desc Displays all contacts in the address book.
      */
     public void displayAllContacts() {
         System.out.println("Address Book Contacts:");
-        for (Contact contact : contacts) {
+        for (Contact contact : getContacts()) {
             contact.displayContact();
             System.out.println("-------------------------");
         }
@@ -55,35 +136,37 @@ public class AddressBookList {
 
     /**
      * @desc Edits an existing contact using their first and last names.
-     *       Prompts the user to enter new information for the contact.
+     *       Prompts the user to enter new information for the contact. Programs should use
+     *       AddressBookService.editContact, which takes the new information as a ContactUpdate.
      *
      * @param firstName The first name of the contact to be edited.
      * @param lastName  The last name of the contact to be edited.
      */
     public void editContact(String firstName, String lastName) {
-        for (Contact contact : contacts) {
-            if (contact.firstName.equals(firstName) && contact.lastName.equals(lastName)) {
-                Scanner scanner = new Scanner(System.in);
+        if (contains(firstName, lastName)) {
+            // The book is not locked while waiting for input
+            Scanner scanner = new Scanner(System.in);
 
-                System.out.println("Enter new information for the contact:");
-                System.out.print("Address: ");
-                contact.address = scanner.nextLine();
+            System.out.println("Enter new information for the contact:");
+            System.out.print("Address: ");
+            String address = scanner.nextLine();
 
-                System.out.print("City: ");
-                contact.city = scanner.nextLine();
+            System.out.print("City: ");
+            String city = scanner.nextLine();
 
-                System.out.print("State: ");
-                contact.state = scanner.nextLine();
+            System.out.print("State: ");
+            String state = scanner.nextLine();
 
-                System.out.print("ZIP Code: ");
-                contact.zip = scanner.nextLine();
+            System.out.print("ZIP Code: ");
+            String zip = scanner.nextLine();
 
-                System.out.print("Phone Number: ");
-                contact.phoneNumber = scanner.nextLine();
+            System.out.print("Phone Number: ");
+            String phoneNumber = scanner.nextLine();
 
-                System.out.print("Email: ");
-                contact.email = scanner.nextLine();
+            System.out.print("Email: ");
+            String email = scanner.nextLine();
 
+            if (edit(firstName, lastName, new ContactUpdate(address, city, state, zip, phoneNumber, email))) {
                 System.out.println("Contact updated successfully.");
                 return;
             }
@@ -99,28 +182,62 @@ public class AddressBookList {
      * @param lastName  The last name of the contact to be deleted.
      */
     public void deleteContact(String firstName, String lastName) {
-        Iterator<Contact> iterator = contacts.iterator();
-        while (iterator.hasNext()) {
-            Contact contact = iterator.next();
-            if (contact.firstName.equals(firstName) && contact.lastName.equals(lastName)) {
-                iterator.remove();
-                System.out.println("Contact deleted successfully.");
-                return;
-            }
+        if (delete(firstName, lastName)) {
+            System.out.println("Contact deleted successfully.");
+            return;
         }
 
         System.out.println("Contact not found. Unable to delete.");
     }
 
+    /**
+     * @desc Replaces every detail but the name of an existing contact, without printing anything.
+     * @param firstName The first name of the contact to be edited.
+     * @param lastName  The last name of the contact to be edited.
+     * @param update    The new details.
+     * @return True if the contact was updated, false if no contact has that name.
+     */
+    boolean edit(String firstName, String lastName, ContactUpdate update) {
+        long start = METRICS.start();
+        boolean updated = update(firstName, lastName, update.getAddress(), update.getCity(), update.getState(),
+                update.getZip(), update.getPhoneNumber(), update.getEmail());
+        METRICS.record(AddressBookMetrics.Operation.EDIT, start);
+        return updated;
+    }
+
+    /**
+     * @desc Deletes a contact using their first and last names, without printing anything.
+     * @param firstName The first name of the contact to be deleted.
+     * @param lastName  The last name of the contact to be deleted.
+     * @return True if the contact was deleted, false if no contact has that name.
+     */
+    boolean delete(String firstName, String lastName) {
+        long start = METRICS.start();
+        Contact removed = remove(firstName, lastName);
+        METRICS.record(AddressBookMetrics.Operation.DELETE, start);
+        return removed != null;
+    }
+
     /**
      * @desc Search for a person in a city in this Address Book.
      * @param cityName The city to search for.
      * @return List of persons in the specified city in this Address Book.
      */
     public List<Contact> searchPersonInCity(String cityName) {
-        return contacts.stream()
-                .filter(contact -> contact.city.equals(cityName))
-                .collect(Collectors.toList());
+        long start = METRICS.start();
+        Unloaded summary = unloaded;
+        if (summary != null && summary.cities != null && !summary.cities.containsKey(cityName)) {
+            // Nobody lives there, so the book is not loaded just to find that out
+            METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+            return new ArrayList<>();
+        }
+        readLock();
+        try {
+            return lookup(contactsByCity, cityName);
+        } finally {
+            lock.readLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+        }
     }
 
     /**
@@ -129,9 +246,142 @@ public class AddressBookList {
      * @return List of persons in the specified state in this Address Book.
      */
     public List<Contact> searchPersonInState(String stateName) {
-        return contacts.stream()
-                .filter(contact -> contact.state.equals(stateName))
-                .collect(Collectors.toList());
+        long start = METRICS.start();
+        Unloaded summary = unloaded;
+        if (summary != null && summary.states != null && !summary.states.containsKey(stateName)) {
+            METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+            return new ArrayList<>();
+        }
+        readLock();
+        try {
+            return lookup(contactsByState, stateName);
+        } finally {
+            lock.readLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    /**
+     * @desc Search for a person with a ZIP code in this Address Book.
+     * @param zip The ZIP code to search for.
+     * @return List of persons with the specified ZIP code in this Address Book.
+     */
+    public List<Contact> searchPersonInZip(String zip) {
+        long start = METRICS.start();
+        readLock();
+        try {
+            return lookup(contactsByZip, zip);
+        } finally {
+            lock.readLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    /**
+     * @desc Search for persons whose first name, last name, phone number or email starts with the given text,
+     *       ignoring case.
+     * @param prefix The text to search for.
+     * @param limit  The maximum number of persons to return.
+     * @return List of matching persons, ordered by the matching name, phone number or email.
+     */
+    public List<Contact> searchByName(String prefix, int limit) {
+        long start = METRICS.start();
+        List<Contact> matches = contactsOf(prefixMatches(prefix, limit));
+        METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+        return matches;
+    }
+
+    /**
+     * @desc Search for persons whose first name, last name, phone number or email is within a few typos of the
+     *       given text, ignoring case.
+     * @param query       The text to search for.
+     * @param maxDistance The number of inserted, deleted or substituted characters tolerated, from 0 to 2.
+     * @param limit       The maximum number of persons to return.
+     * @return List of matching persons, closest first.
+     */
+    public List<Contact> searchByNameFuzzy(String query, int maxDistance, int limit) {
+        long start = METRICS.start();
+        List<Contact> matches = contactsOf(fuzzyMatches(query, maxDistance, limit));
+        METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+        return matches;
+    }
+
+    /**
+     * @desc Finds the first prefix matches of the name search index, with the terms they matched.
+     */
+    List<NameSearchIndex.Match> prefixMatches(String prefix, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        readLock();
+        try {
+            return nameSearch.searchPrefix(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Finds the closest fuzzy matches of the name search index, with the terms they matched.
+     */
+    List<NameSearchIndex.Match> fuzzyMatches(String query, int maxDistance, int limit) {
+        if (maxDistance < 0 || maxDistance > MAX_EDIT_DISTANCE) {
+            throw new IllegalArgumentException("Edit distance must be between 0 and " + MAX_EDIT_DISTANCE + ": " + maxDistance);
+        }
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        readLock();
+        try {
+            return nameSearch.searchFuzzy(query, maxDistance, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Runs a query over this Address Book. The planner answers the filter from the city, state and
+     *       ZIP code indexes where it can and scans the contacts only when it cannot.
+     * @param query The query to run.
+     * @return List of matching persons, sorted and paged as the query asks.
+     */
+    public List<Contact> query(ContactQuery query) {
+        long start = METRICS.start();
+        readLock();
+        try {
+            return new ArrayList<>(new QueryPlanner(this).plan(query).rows());
+        } finally {
+            lock.readLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.SEARCH, start);
+        }
+    }
+
+    /**
+     * @desc Counts the persons matching the filter of a query, ignoring its sort, offset and limit.
+     * @param query The query whose matches are counted.
+     * @return The number of matching persons.
+     */
+    public long count(ContactQuery query) {
+        readLock();
+        try {
+            return new QueryPlanner(this).planFilter(query.getFilter()).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Describes how a query would run, one plan step per line with the estimated number of rows.
+     * @param query The query to plan.
+     * @return The plan as an indented tree.
+     */
+    public String explain(ContactQuery query) {
+        readLock();
+        try {
+            return new QueryPlanner(this).plan(query).explain();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -140,8 +390,16 @@ public class AddressBookList {
      * @return Map containing the count of contact persons by city.
      */
     public Map<String, Long> getCountByCity() {
-        return contacts.stream()
-                .collect(Collectors.groupingBy(Contact::getCity, Collectors.counting()));
+        Unloaded summary = unloaded;
+        if (summary != null && summary.cities != null) {
+            return new HashMap<>(summary.cities);
+        }
+        readLock();
+        try {
+            return countIndex(contactsByCity);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -150,15 +408,37 @@ public class AddressBookList {
      * @return Map containing the count of contact persons by state.
      */
     public Map<String, Long> getCountByState() {
-        return contacts.stream()
-                .collect(Collectors.groupingBy(Contact::getState, Collectors.counting()));
+        Unloaded summary = unloaded;
+        if (summary != null && summary.states != null) {
+            return new HashMap<>(summary.states);
+        }
+        readLock();
+        try {
+            return countIndex(contactsByState);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
      * @desc Sorts all contacts in the address book alphabetically by person's name.
      */
     public void sortByName() {
-        contacts.sort(Comparator.naturalOrder());
+        long start = METRICS.start();
+        writeLock();
+        try {
+            // Re-insert the entries in name order, read off the name index without sorting;
+            // the store then iterates in sorted order
+            ContactStore sorted = contacts.newStore(contacts.size());
+            for (Contact contact : contactsByName) {
+                sorted.add(contact);
+            }
+            contacts = sorted;
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.SORT, start);
+        }
     }
 
     /**
@@ -168,40 +448,122 @@ public class AddressBookList {
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
-        for (Contact contact : contacts) {
-            result.append(contact.toString()).append("\n");
+        try {
+            writeTo(result);
+        } catch (IOException e) {
+            // A StringBuilder does not throw
+            throw new UncheckedIOException(e);
         }
         return result.toString();
     }
 
     /**
-     * @desc Sorts the contacts in the address book by city.
+     * @desc Writes every person entry to the output one at a time, in the same format as toString, without
+     *       building the whole text in memory.
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        for (Contact contact : getContacts()) {
+            out.append(contact.toString()).append("\n");
+        }
+    }
+
+    /**
+     * @desc Streams the contacts in the order they are stored. The stream reads the current snapshot, which
+     *       is shared with every other reader, so it copies nothing and later changes do not affect it.
+     * @return A lazy stream of the contacts.
+     */
+    public Stream<Contact> stream() {
+        return getContacts().stream();
+    }
+
+    /**
+     * @desc Streams the contacts in name order, fetching them a page at a time. Only one page is held at a time,
+     *       so memory stays constant however large the book. Changes made while the stream is read show up in
+     *       the pages not yet fetched.
+     * @return A lazy stream of the contacts sorted by name.
+     */
+    public Stream<Contact> streamByName() {
+        Iterator<Contact> pages = new Iterator<Contact>() {
+            private ContactPage page = pageByName(null, STREAM_PAGE_SIZE);
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                while (position == page.getContacts().size() && page.hasNext()) {
+                    page = pageByName(page.getNextCursor(), STREAM_PAGE_SIZE);
+                    position = 0;
+                }
+                return position < page.getContacts().size();
+            }
+
+            @Override
+            public Contact next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.getContacts().get(position++);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * @desc Gets one page of contacts in name order, read off the name index in O(log n + page size).
+     * @param cursor   The cursor from the previous page, or null for the first page.
+     * @param pageSize The maximum number of contacts on the page.
+     * @return The page, with the cursor of the next page.
+     * @throws IllegalArgumentException If the cursor is invalid or the page size is not positive.
+     */
+    public ContactPage pageByName(String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        readLock();
+        try {
+            Iterator<Contact> remaining;
+            if (cursor == null) {
+                remaining = contactsByName.iterator();
+            } else {
+                String[] name = ContactPage.decode(cursor);
+                remaining = contactsByName.tailSet(nameKey(name[0], name[1]), false).iterator();
+            }
+            List<Contact> page = new ArrayList<>(Math.min(pageSize, contacts.size()));
+            while (page.size() < pageSize && remaining.hasNext()) {
+                page.add(remaining.next());
+            }
+            String nextCursor = remaining.hasNext() ? ContactPage.cursorAfter(page.get(page.size() - 1)) : null;
+            return new ContactPage(Collections.unmodifiableList(page), nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Sorts the contacts in the address book by city. The contacts are read off the city index,
+     *       which is kept in order, so this costs O(n) without sorting; within a city contacts keep the order they were added in.
      * @return List of contacts sorted by city.
      */
     public List<Contact> sortByCity() {
-        return contacts.stream()
-                .sorted(Comparator.comparing(Contact::getCity))
-                .collect(Collectors.toList());
+        return sortedView(contactsByCity);
     }
 
     /**
-     * @desc Sorts the contacts in the address book by state.
+     * @desc Sorts the contacts in the address book by state, reading them off the state index in O(n).
      * @return List of contacts sorted by state.
      */
     public List<Contact> sortByState() {
-        return contacts.stream()
-                .sorted(Comparator.comparing(Contact::getState))
-                .collect(Collectors.toList());
+        return sortedView(contactsByState);
     }
 
     /**
-     * @desc Sorts the contacts in the address book by ZIP code.
+     * @desc Sorts the contacts in the address book by ZIP code, reading them off the ZIP code index in O(n).
      * @return List of contacts sorted by ZIP code.
      */
     public List<Contact> sortByZip() {
-        return contacts.stream()
-                .sorted(Comparator.comparing(Contact::getZip))
-                .collect(Collectors.toList());
+        return sortedView(contactsByZip);
     }
 
     /**
@@ -218,16 +580,13 @@ public class AddressBookList {
     }
 
     /**
-     * @desc Saves the contacts to a file in CSV format.
+     * @desc Saves the contacts to a file in CSV format. The contacts are streamed into a temporary file
+     *       which then replaces the previous file in one rename, so a failed save leaves the old file intact.
      * @param addressBookName The name of the address book.
      */
     public void saveToFile(String addressBookName) {
-        File file = new File(CONTACTS_DIRECTORY + File.separator + addressBookName + FILE_EXTENSION);
-
-        try (PrintWriter writer = new PrintWriter(file)) {
-            for (Contact contact : contacts) {
-                writer.println(contact.toCsvString()); // Assuming you have a toCsvString() method in your Contact class
-            }
+        try {
+            save(addressBookName);
             System.out.println("Contacts saved successfully to file.");
         } catch (IOException e) {
             e.printStackTrace();
@@ -235,35 +594,804 @@ public class AddressBookList {
         }
     }
 
+    /**
+     * @desc Saves the contacts to a file in CSV format like saveToFile, without printing anything.
+     * @param addressBookName The name of the address book.
+     * @throws IOException If the file cannot be written; the previous file is then left intact.
+     */
+    void save(String addressBookName) throws IOException {
+        File file = new File(CONTACTS_DIRECTORY + File.separator + addressBookName + FILE_EXTENSION);
+
+        long start = METRICS.start();
+        Snapshot saved = snapshot();
+        ContactCsvWriter.writeAtomically(file, saved.contacts);
+        if (isOwnFile(addressBookName)) {
+            savedVersion = saved.version;
+        }
+        METRICS.record(AddressBookMetrics.Operation.SAVE, start);
+        METRICS.addBytesWritten(file.length());
+    }
+
 
     /**
      * @desc Loads contacts from a file in CSV format.
      * @param addressBookName The name of the address book.
      */
     public void loadFromFile(String addressBookName) {
-        File file = new File(CONTACTS_DIRECTORY + File.separator + addressBookName + FILE_EXTENSION);
+        long start = System.nanoTime();
+        try {
+            ImportSummary summary = load(addressBookName);
+            if (summary == null) {
+                System.out.println("File does not exist. Creating a new one.");
+                return;
+            }
+            long rows = summary.getAdded() + summary.getDuplicates() + summary.getRejected();
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1_000_000_000.0;
+            System.out.println("Contacts loaded successfully from file.");
+            System.out.printf("Read %d rows (%.0f rows/s), rejected %d malformed lines.%n",
+                    rows, rows / seconds, summary.getRejected());
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.out.println("Failed to load contacts from file.");
+        }
+    }
 
-        if (file.exists() && file.isFile()) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    Contact contact = Contact.fromCsvString(line); // Assuming you have a fromCsvString() method in your Contact class
-                    if (!contacts.contains(contact)) {
-                        contacts.add(contact);
-                    }
-                }
-                System.out.println("Contacts loaded successfully from file.");
+    /**
+     * @desc Loads contacts from a file in CSV format like loadFromFile, without printing anything, or from the
+     *       book's binary file when it is newer. A book with no file is emptied.
+     * @param addressBookName The name of the address book.
+     * @return What was read, or null if the book has no file.
+     * @throws IOException If the file cannot be read; the contacts read before the failure are kept.
+     */
+    ImportSummary load(String addressBookName) throws IOException {
+        long start = METRICS.start();
+        writeLock();
+        try {
+            ImportSummary summary = importSaved(addressBookName);
+            if (summary == null) {
+                // Start from an empty contact store
+                clear();
+            }
+            if (isOwnFile(addressBookName)) {
+                savedVersion = version;
+            }
+            return summary;
+        } finally {
+            lock.writeLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.LOAD, start);
+        }
+    }
+
+    /**
+     * @desc Removes every contact from the address book and its indexes.
+     */
+    private void clear() {
+        // Called with the write lock held
+        contacts.values().forEach(this::unindex);
+        contacts = contacts.newStore(0);
+        changed();
+    }
+
+    /**
+     * @desc Stores a contact unless one with the same name exists, and adds it to the secondary indexes.
+     *       Unlike addContact, nothing is printed.
+     * @param contact The contact to store.
+     * @return True if the contact was stored, false if it is a duplicate.
+     */
+    boolean insert(Contact contact) {
+        writeLock();
+        try {
+            if (!contacts.add(contact)) {
+                return false;
+            }
+            index(contact);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Stores a contact, replacing and re-indexing any contact with the same name. Nothing is printed.
+     * @param contact The contact to store.
+     */
+    void put(Contact contact) {
+        writeLock();
+        try {
+            Contact previous = contacts.put(contact);
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(contact);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Adds many contacts at once, e.g. parsed from another system. The whole stream is stored under one
+     *       write lock, with duplicates dropped by the same hashing pass that stores the contacts, and the
+     *       secondary indexes are built once at the end rather than contact by contact. Nothing is printed per
+     *       contact. The stream is consumed while the book is locked, so it must not use this book.
+     * @param newContacts The contacts to add, in order; a contact whose name was seen before is a duplicate.
+     * @return How many contacts were added and how many were duplicates or null.
+     */
+    public ImportSummary addAll(Stream<Contact> newContacts) {
+        long start = METRICS.start();
+        writeLock();
+        Import batch = new Import();
+        try {
+            newContacts.forEachOrdered(batch::offer);
+            return batch.summary(0);
+        } finally {
+            batch.finish();
+            lock.writeLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.IMPORT, start);
+        }
+    }
+
+    /**
+     * @desc Adds the contacts of a CSV file in the format written by saveToFile, the same way as addAll.
+     *       Malformed rows are skipped and counted as rejected.
+     * @param file The CSV file.
+     * @return How many contacts were added, were duplicates and were rejected.
+     * @throws IOException If the file cannot be read; the contacts read before the failure are kept.
+     */
+    public ImportSummary importFromFile(File file) throws IOException {
+        long start = METRICS.start();
+        writeLock();
+        try {
+            ImportSummary summary = importFrom(file);
+            METRICS.addBytesRead(file.length());
+            return summary;
+        } finally {
+            lock.writeLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.IMPORT, start);
+        }
+    }
+
+    /**
+     * @desc Adds the contacts saved for a book while holding the write lock. They are read from the book's binary
+     *       file, written by AddressBookFileConverter for MappedAddressBook, when it is newer than the CSV file;
+     *       saving always writes the CSV file, so a binary file is only used until the book is next saved.
+     *       A binary file that cannot be opened, e.g. one left incomplete, is passed over for the CSV file.
+     * @param addressBookName The name of the address book.
+     * @return What was read, or null if the book has no file.
+     */
+    private ImportSummary importSaved(String addressBookName) throws IOException {
+        File file = new File(CONTACTS_DIRECTORY + File.separator + addressBookName + FILE_EXTENSION);
+        File binaryFile = new File(CONTACTS_DIRECTORY + File.separator + addressBookName + BINARY_FILE_EXTENSION);
+        if (binaryFile.isFile() && (!file.isFile() || binaryFile.lastModified() > file.lastModified())) {
+            MappedAddressBook saved = null;
+            try {
+                saved = MappedAddressBook.open(binaryFile.toPath());
             } catch (IOException e) {
-                e.printStackTrace();
-                System.out.println("Failed to load contacts from file.");
+                if (!file.isFile()) {
+                    throw e;
+                }
+                // A damaged binary file does not hide the CSV file
+            }
+            if (saved != null) {
+                ImportSummary summary = importFromBinary(saved);
+                METRICS.addBytesRead(binaryFile.length());
+                return summary;
+            }
+        }
+        if (!file.isFile()) {
+            return null;
+        }
+        ImportSummary summary = importFrom(file);
+        METRICS.addBytesRead(file.length());
+        return summary;
+    }
+
+    /**
+     * @desc Adds the contacts of a binary file while holding the write lock, decoding them straight from the
+     *       mapped file instead of parsing CSV. Closes the file.
+     */
+    private ImportSummary importFromBinary(MappedAddressBook saved) throws IOException {
+        try (saved) {
+            if (contacts.size() == 0) {
+                contacts = contacts.newStore(saved.size());
+            }
+            Import batch = new Import();
+            try {
+                saved.forEach(batch::offer);
+                return batch.summary(0);
+            } finally {
+                batch.finish();
+            }
+        }
+    }
+
+    /**
+     * @desc Adds the contacts of a CSV file while holding the write lock.
+     */
+    private ImportSummary importFrom(File file) throws IOException {
+        if (contacts.size() == 0) {
+            // Pre-size the store from the file length so it does not rehash while loading
+            contacts = contacts.newStore((int) Math.min(Integer.MAX_VALUE / 2, file.length() / ESTIMATED_CSV_ROW_BYTES));
+        }
+        Import batch = new Import();
+        try (ContactCsvReader reader = new ContactCsvReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            Contact contact;
+            while ((contact = reader.next()) != null) {
+                batch.offer(contact);
+            }
+            return batch.summary(reader.getRejectedRows());
+        } finally {
+            batch.finish();
+        }
+    }
+
+    /**
+     * @desc Removes the contact with the given name from the store and the secondary indexes.
+     *       Unlike deleteContact, nothing is printed.
+     * @param firstName The first name of the contact.
+     * @param lastName  The last name of the contact.
+     * @return The removed contact, or null if no contact has that name.
+     */
+    Contact remove(String firstName, String lastName) {
+        writeLock();
+        try {
+            Contact contact = contacts.remove(firstName, lastName);
+            if (contact != null) {
+                unindex(contact);
+            }
+            return contact;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Replaces the contact with the given name by one with a new address, phone number and email,
+     *       re-indexing it under its new city, state and ZIP code. Nothing is printed.
+     * @return True if the contact was updated, false if no contact has that name.
+     */
+    boolean update(String firstName, String lastName, String address, String city, String state,
+                   String zip, String phoneNumber, String email) {
+        writeLock();
+        try {
+            Contact contact = contacts.get(firstName, lastName);
+            if (contact == null) {
+                return false;
+            }
+            // Stored contacts are never modified, so snapshots held by readers keep the old values
+            Contact updated = new Contact(contact.firstName, contact.lastName, address, city, state, zip, phoneNumber, email);
+            unindex(contact);
+            contacts.put(updated);
+            index(updated);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Looks up a contact by name.
+     * @param firstName The first name of the contact.
+     * @param lastName  The last name of the contact.
+     * @return The contact, or null if no contact has that name.
+     */
+    Contact find(String firstName, String lastName) {
+        readLock();
+        try {
+            return contacts.get(firstName, lastName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Checks whether a contact with the given name is in the address book.
+     * @param firstName The first name of the contact.
+     * @param lastName  The last name of the contact.
+     * @return True if the contact exists.
+     */
+    boolean contains(String firstName, String lastName) {
+        readLock();
+        try {
+            return contacts.contains(firstName, lastName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Acquires the read lock, first loading the book back if the cache has unloaded it.
+     * @throws UncheckedIOException If the book has to be loaded and its file cannot be read.
+     */
+    private void readLock() {
+        lock.readLock().lock();
+        if (unloaded != null) {
+            // Loading needs the write lock, which is then downgraded
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                reloadIfUnloaded();
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        touch();
+    }
+
+    /**
+     * @desc Acquires the write lock, first loading the book back if the cache has unloaded it.
+     * @throws UncheckedIOException If the book has to be loaded and its file cannot be read.
+     */
+    private void writeLock() {
+        lock.writeLock().lock();
+        try {
+            reloadIfUnloaded();
+        } catch (RuntimeException e) {
+            lock.writeLock().unlock();
+            throw e;
+        }
+        touch();
+    }
+
+    private void touch() {
+        if (cache != null) {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * @desc Hands the book to a cache, which may unload it from then on.
+     * @param cache    The cache.
+     * @param name     The name of the book, which names its file.
+     * @param unloaded Whether the book is left to be read from its file on first use.
+     */
+    void keepIn(AddressBookCache cache, String name, boolean unloaded) {
+        lock.writeLock().lock();
+        try {
+            this.cacheName = name;
+            this.cache = cache;
+            if (unloaded) {
+                // Nothing is known of the contents until the file is read
+                this.unloaded = new Unloaded(0, null, null);
+            }
+            lastAccess = System.nanoTime();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Saves the book if it changed since it was last saved or loaded, then drops its contacts and indexes,
+     *       keeping only the number of contacts per city and state. The book is loaded back on its next use.
+     *       A book in use by another thread is left alone.
+     * @return True if the book was unloaded.
+     * @throws IOException If the changes cannot be saved; the book then keeps its contacts rather than lose them.
+     */
+    boolean unload() throws IOException {
+        if (!lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            if (unloaded != null) {
+                return false;
+            }
+            if (version != savedVersion) {
+                File file = new File(CONTACTS_DIRECTORY + File.separator + cacheName + FILE_EXTENSION);
+                long start = METRICS.start();
+                ContactCsvWriter.writeAtomically(file, contacts.values());
+                METRICS.record(AddressBookMetrics.Operation.SAVE, start);
+                METRICS.addBytesWritten(file.length());
+            }
+            Unloaded summary = new Unloaded(contacts.size(), countIndex(contactsByCity), countIndex(contactsByState));
+            clear();
+            savedVersion = version;
+            unloaded = summary;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Reads the contacts of an unloaded book back from its file. Called with the write lock held.
+     */
+    private void reloadIfUnloaded() {
+        if (unloaded == null) {
+            return;
+        }
+        // Cleared first, so nothing below tries to load the book again
+        Unloaded summary = unloaded;
+        unloaded = null;
+        long start = METRICS.start();
+        try {
+            importSaved(cacheName);
+        } catch (IOException e) {
+            // Stay unloaded rather than be saved later with contacts missing
+            clear();
+            unloaded = summary;
+            throw new UncheckedIOException("Failed to load Address Book '" + cacheName + "'.", e);
+        }
+        savedVersion = version;
+        METRICS.record(AddressBookMetrics.Operation.LOAD, start);
+        cache.loaded(this);
+    }
+
+    /**
+     * @desc Gets the number of contacts without loading an unloaded book, for the gauges.
+     * @return The number of contacts, or 0 for a book that has not been read yet.
+     */
+    int knownSize() {
+        Unloaded summary = unloaded;
+        if (summary != null) {
+            return summary.size;
+        }
+        lock.readLock().lock();
+        try {
+            return contacts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    boolean isUnloaded() {
+        return unloaded != null;
+    }
+
+    /**
+     * @desc Checks whether the book changed since it was last read from or saved to its file, without loading
+     *       an unloaded book, which has no unsaved changes.
+     * @return True if the book has changes its file does not have.
+     */
+    boolean isChanged() {
+        lock.readLock().lock();
+        try {
+            return unloaded == null && version != savedVersion;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Checks whether a name is the one this book is saved under. Outside a cache the book does not know its
+     *       name, so any name is taken to be its own.
+     */
+    private boolean isOwnFile(String addressBookName) {
+        return cacheName == null || addressBookName.equals(cacheName);
+    }
+
+    /**
+     * @desc Gets the index on a field, for the query planner. The caller holds the read lock.
+     * @param field The field.
+     * @return The index from field value to contacts, or null if the field is not indexed.
+     */
+    NavigableMap<String, Set<Contact>> indexOf(ContactField field) {
+        switch (field) {
+            case CITY:
+                return contactsByCity;
+            case STATE:
+                return contactsByState;
+            case ZIP:
+                return contactsByZip;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @desc Counts the distinct keys of a field index.
+     * @param field The field.
+     * @return The number of distinct values indexed, or 0 if the field is not indexed or the book is unloaded.
+     */
+    int indexKeys(ContactField field) {
+        lock.readLock().lock();
+        try {
+            // Gauges read this, and must not load a book the cache has unloaded
+            NavigableMap<String, Set<Contact>> index = indexOf(field);
+            return index == null ? 0 : index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Gets the stored contacts, for the query planner. The caller holds the read lock.
+     * @return The live contacts in iteration order.
+     */
+    Collection<Contact> storedContacts() {
+        return contacts.values();
+    }
+
+    /**
+     * @desc Gets the stored contact with a given name, for the query planner. The caller holds the read lock.
+     * @return The contact, or null if no contact has that name.
+     */
+    Contact stored(String firstName, String lastName) {
+        return contacts.get(firstName, lastName);
+    }
+
+    /**
+     * @desc Gets an immutable point-in-time view of the contacts, in iteration order.
+     * @return List of all contacts at the latest version.
+     */
+    List<Contact> getContacts() {
+        return snapshot().contacts;
+    }
+
+    /**
+     * @desc Gets the version of the address book, which changes whenever a contact is added, edited or deleted
+     *       or the contacts are reordered. Cheap, since it does not build a snapshot.
+     * @return The current version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @desc Gets the current snapshot, building it under the read lock if a change has made the last one stale.
+     *       Contacts are never modified once stored, so a snapshot stays consistent however long a reader keeps it.
+     * @return The current snapshot.
+     */
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            touch();
+            return current;
+        }
+        readLock();
+        try {
+            current = snapshot;
+            if (current == null) {
+                current = new Snapshot(version, List.copyOf(contacts.values()));
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Marks the current snapshot as stale. Called with the write lock held after every change.
+     */
+    private void changed() {
+        version++;
+        snapshot = null;
+    }
+
+    /**
+     * @desc Gets the number of contacts in the address book.
+     * @return The number of contacts.
+     */
+    public int size() {
+        Unloaded summary = unloaded;
+        if (summary != null && summary.cities != null) {
+            return summary.size;
+        }
+        readLock();
+        try {
+            return contacts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Adds a contact to the city, state, ZIP code and name search indexes and notifies the listeners.
+     * @param contact The contact to index.
+     */
+    private void index(Contact contact) {
+        contactsByCity.computeIfAbsent(contact.city, key -> new LinkedHashSet<>()).add(contact);
+        contactsByState.computeIfAbsent(contact.state, key -> new LinkedHashSet<>()).add(contact);
+        contactsByZip.computeIfAbsent(contact.zip, key -> new LinkedHashSet<>()).add(contact);
+        contactsByName.add(contact);
+        nameSearch.add(contact);
+        changed();
+        for (AddressBookListener listener : listeners) {
+            listener.contactAdded(contact);
+        }
+    }
+
+    /**
+     * @desc Adds contacts just stored to the indexes in one pass, then notifies the listeners of each.
+     *       Each city, state and ZIP code is looked up in its sorted index once rather than once per contact.
+     * @param added The contacts to index, in the order they were stored.
+     */
+    private void indexAll(List<Contact> added) {
+        if (added.isEmpty()) {
+            return;
+        }
+        addAllToIndex(contactsByCity, added, ContactField.CITY);
+        addAllToIndex(contactsByState, added, ContactField.STATE);
+        addAllToIndex(contactsByZip, added, ContactField.ZIP);
+        contactsByName.addAll(added);
+        for (Contact contact : added) {
+            nameSearch.add(contact);
+        }
+        changed();
+        for (AddressBookListener listener : listeners) {
+            for (Contact contact : added) {
+                listener.contactAdded(contact);
+            }
+        }
+    }
+
+    /**
+     * @desc Removes a contact from the city, state, ZIP code and name search indexes, using its current field values,
+     *       and notifies the listeners.
+     * @param stored  The contact to remove from the indexes, as held by the store.
+     */
+    private void unindex(Contact stored) {
+        // The store may have handed back a copy; the listeners are given the object they were given when it was added
+        Contact contact = contactsByName.floor(stored);
+        if (contact == null || NAME_ORDER.compare(contact, stored) != 0) {
+            contact = stored;
+        }
+        removeFromIndex(contactsByCity, contact.city, contact);
+        removeFromIndex(contactsByState, contact.state, contact);
+        removeFromIndex(contactsByZip, contact.zip, contact);
+        contactsByName.remove(contact);
+        nameSearch.remove(contact);
+        changed();
+        for (AddressBookListener listener : listeners) {
+            listener.contactRemoved(contact);
+        }
+    }
+
+    /**
+     * @desc Lists every contact of an index in key order.
+     * @param index The index to read.
+     * @return List of all contacts ordered by the index key.
+     */
+    private List<Contact> sortedView(Map<String, Set<Contact>> index) {
+        long start = METRICS.start();
+        readLock();
+        try {
+            List<Contact> sorted = new ArrayList<>(contacts.size());
+            for (Set<Contact> matches : index.values()) {
+                sorted.addAll(matches);
+            }
+            return sorted;
+        } finally {
+            lock.readLock().unlock();
+            METRICS.record(AddressBookMetrics.Operation.SORT, start);
+        }
+    }
+
+    /**
+     * @desc Extracts the contacts of search matches, keeping their order.
+     */
+    static List<Contact> contactsOf(List<NameSearchIndex.Match> matches) {
+        List<Contact> result = new ArrayList<>(matches.size());
+        for (NameSearchIndex.Match match : matches) {
+            result.add(match.contact);
+        }
+        return result;
+    }
+
+    /**
+     * @desc Adds contacts to an index, remembering the entry of each key so the sorted map is searched once per key.
+     */
+    private static void addAllToIndex(NavigableMap<String, Set<Contact>> index, List<Contact> added, ContactField field) {
+        Map<String, Set<Contact>> entries = new HashMap<>();
+        for (Contact contact : added) {
+            String key = field.valueOf(contact);
+            Set<Contact> matches = entries.get(key);
+            if (matches == null) {
+                matches = index.computeIfAbsent(key, absent -> new LinkedHashSet<>());
+                entries.put(key, matches);
+            }
+            matches.add(contact);
+        }
+    }
+
+    /**
+     * @desc Removes a contact from one index entry, dropping the entry once it is empty.
+     */
+    private static void removeFromIndex(Map<String, Set<Contact>> index, String key, Contact contact) {
+        Set<Contact> matches = index.get(key);
+        if (matches != null) {
+            matches.remove(contact);
+            if (matches.isEmpty()) {
+                index.remove(key);
             }
-        } else {
-            System.out.println("File does not exist. Creating a new one.");
-            // Create an empty ArrayList<Contact>
-            contacts = new ArrayList<>();
         }
     }
 
+    /**
+     * @desc Copies the contacts stored under a key of an index.
+     * @return List of matching contacts, empty if the key is not indexed.
+     */
+    private static List<Contact> lookup(Map<String, Set<Contact>> index, String key) {
+        Set<Contact> matches = index.get(key);
+        return matches == null ? new ArrayList<>() : new ArrayList<>(matches);
+    }
 
+    /**
+     * @desc Builds a count map from the sizes of the index entries.
+     * @return Map containing the number of contacts per key.
+     */
+    private static Map<String, Long> countIndex(Map<String, Set<Contact>> index) {
+        Map<String, Long> counts = new HashMap<>(index.size() * 4 / 3 + 1);
+        index.forEach((key, matches) -> counts.put(key, (long) matches.size()));
+        return counts;
+    }
 
-}
\ No newline at end of file
+    /**
+     * @desc Builds a lookup key for the name index. Contact equality only considers the
+     *       first and last name, so the remaining fields are left empty.
+     * @param firstName The first name of the contact.
+     * @param lastName  The last name of the contact.
+     * @return A Contact usable as a key into the name index.
+     */
+    private static Contact nameKey(String firstName, String lastName) {
+        return new Contact(firstName, lastName, null, null, null, null, null, null);
+    }
+
+    /**
+     * @desc What is kept of a book while it is unloaded: its number of contacts, and its number of contacts per
+     *       city and state, so counts and searches that cannot match it do not load it. The maps are null when the
+     *       book has not been read yet.
+     */
+    private static final class Unloaded {
+        private final int size;
+        private final Map<String, Long> cities;
+        private final Map<String, Long> states;
+
+        private Unloaded(int size, Map<String, Long> cities, Map<String, Long> states) {
+            this.size = size;
+            this.cities = cities;
+            this.states = states;
+        }
+    }
+
+    /**
+     * @desc Contacts being added in bulk under the write lock. Each is stored or counted as a duplicate as it
+     *       arrives; the stored ones are indexed together by finish.
+     */
+    private final class Import {
+        private final List<Contact> added = new ArrayList<>();
+        private long duplicates;
+        private long rejected;
+
+        void offer(Contact contact) {
+            if (contact == null) {
+                rejected++;
+            } else if (contacts.add(contact)) {
+                added.add(contact);
+            } else {
+                duplicates++;
+            }
+        }
+
+        ImportSummary summary(long rejectedRows) {
+            return new ImportSummary(added.size(), duplicates, rejected + rejectedRows);
+        }
+
+        /**
+         * @desc Indexes the stored contacts. Also called when the import fails part way, so the store and the
+         *       indexes never disagree.
+         */
+        void finish() {
+            indexAll(added);
+            added.clear();
+        }
+    }
+
+    /**
+     * @desc An immutable view of the contacts at one version of the address book.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final List<Contact> contacts;
+
+        private Snapshot(long version, List<Contact> contacts) {
+            this.version = version;
+            this.contacts = contacts;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bridgelabz.addressbook;
+
+/**
+ * @desc Listener notified whenever a contact enters or leaves an AddressBookList.
+ *       An edit is reported as a removal with the old field values followed by
+ *       an addition with the new ones, so listeners can keep derived indexes current.
+ */
+public interface AddressBookListener {
+
+    /**
+     * @desc Called after a contact has been added to the address book, or after it has been edited.
+     * @param contact The contact, holding its current field values.
+     */
+    void contactAdded(Contact contact);
+
+    /**
+     * @desc Called when a contact is deleted from the address book, or right before it is edited.
+     * @param contact The contact, still holding the field values it was indexed under.
+     */
+    void contactRemoved(Contact contact);
+}
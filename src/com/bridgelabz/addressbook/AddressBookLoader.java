@@ -0,0 +1,20 @@
+package com.bridgelabz.addressbook;
+
+import java.io.IOException;
+
+/**
+ * @desc Fills an Address Book from its files on disk, e.g. from its CSV file with AddressBookList.importFromFile
+ *       or from its snapshot and log with ContactJournal.open. Used by AddressBookSystem.loadAllAddressBooks,
+ *       which calls it for several Address Books at once.
+ */
+@FunctionalInterface
+public interface AddressBookLoader {
+
+    /**
+     * @desc Loads one Address Book.
+     * @param addressBook     The empty Address Book, already registered with the system.
+     * @param addressBookName The name of the Address Book.
+     * @throws IOException If the files of the Address Book cannot be read.
+     */
+    void load(AddressBookList addressBook, String addressBookName) throws IOException;
+}
@@ -0,0 +1,173 @@
+package com.bridgelabz.addressbook;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @desc Metrics of the address book system: a call counter and latency histogram per operation, bytes read
+ *       and written, and gauges such as the number of contacts in each book and the size of its indexes.
+ *
+ *       Recording costs two System.nanoTime calls and a few striped-counter adds, cheap enough to leave on;
+ *       run with -Daddressbook.metrics=false to turn recording off altogether. Gauges are only read when the
+ *       metrics are, so they cost nothing on the hot paths.
+ *
+ *       The metrics are published over JMX by registerMBean and pushed to a MetricsExporter by startExporting.
+ */
+public final class AddressBookMetrics implements AddressBookMetricsMXBean {
+
+    /**
+     * @desc The operations whose calls and latencies are recorded.
+     */
+    public enum Operation {
+        ADD, EDIT, DELETE, SEARCH, SORT, LOAD, SAVE, IMPORT
+    }
+
+    static final String OBJECT_NAME = "com.bridgelabz.addressbook:type=AddressBookMetrics";
+    private static final boolean ENABLED = !"false".equals(System.getProperty("addressbook.metrics"));
+    private static final AddressBookMetrics DEFAULT = new AddressBookMetrics();
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private ScheduledExecutorService exportScheduler;
+
+    AddressBookMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * @desc Gets the metrics shared by every Address Book in this JVM.
+     * @return The metrics.
+     */
+    public static AddressBookMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @desc Starts timing an operation.
+     * @return The start time to pass to record, or 0 when metrics are off.
+     */
+    long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @desc Records an operation that started at the given time.
+     * @param operation  The operation.
+     * @param startNanos The value returned by start.
+     */
+    void record(Operation operation, long startNanos) {
+        if (ENABLED) {
+            latencies.get(operation).record(System.nanoTime() - startNanos);
+        }
+    }
+
+    void addBytesRead(long bytes) {
+        if (ENABLED) {
+            bytesRead.add(bytes);
+        }
+    }
+
+    void addBytesWritten(long bytes) {
+        if (ENABLED) {
+            bytesWritten.add(bytes);
+        }
+    }
+
+    /**
+     * @desc Registers a value that is read whenever the metrics are, replacing any gauge of the same name.
+     * @param name  The metric name.
+     * @param value Supplies the current value.
+     */
+    public void registerGauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    @Override
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new TreeMap<>();
+        for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            String prefix = entry.getKey().name().toLowerCase(Locale.ROOT) + ".";
+            LatencyHistogram histogram = entry.getValue();
+            metrics.put(prefix + "count", histogram.count());
+            metrics.put(prefix + "totalNanos", histogram.totalNanos());
+            metrics.put(prefix + "maxNanos", histogram.maxNanos());
+            metrics.put(prefix + "p50Nanos", histogram.percentileNanos(50));
+            metrics.put(prefix + "p99Nanos", histogram.percentileNanos(99));
+        }
+        metrics.put("bytes.read", bytesRead.sum());
+        metrics.put("bytes.written", bytesWritten.sum());
+        gauges.forEach((name, value) -> metrics.put(name, value.getAsLong()));
+        return metrics;
+    }
+
+    @Override
+    public long getMetric(String name) {
+        Long value = getMetrics().get(name);
+        return value == null ? -1 : value;
+    }
+
+    @Override
+    public void reset() {
+        latencies.values().forEach(LatencyHistogram::reset);
+        bytesRead.reset();
+        bytesWritten.reset();
+    }
+
+    /**
+     * @desc Publishes the metrics on the platform MBean server. Calling it again has no effect.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+            System.out.println("Failed to publish the metrics over JMX.");
+        }
+    }
+
+    /**
+     * @desc Pushes the metrics to an exporter at a fixed rate, on a background thread.
+     * @param exporter The exporter.
+     * @param period   The time between exports.
+     * @param unit     The unit of the period.
+     * @return The scheduled task; cancel it to stop exporting.
+     */
+    public synchronized ScheduledFuture<?> startExporting(MetricsExporter exporter, long period, TimeUnit unit) {
+        if (exportScheduler == null) {
+            exportScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "address-book-metrics-exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return exportScheduler.scheduleAtFixedRate(() -> {
+            try {
+                exporter.export(getMetrics());
+            } catch (RuntimeException e) {
+                // A failing exporter must not stop later exports
+                e.printStackTrace();
+            }
+        }, period, period, unit);
+    }
+}
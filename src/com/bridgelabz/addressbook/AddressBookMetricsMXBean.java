@@ -0,0 +1,27 @@
+package com.bridgelabz.addressbook;
+
+import java.util.Map;
+
+/**
+ * @desc JMX view of the address book metrics, registered as com.bridgelabz.addressbook:type=AddressBookMetrics.
+ */
+public interface AddressBookMetricsMXBean {
+
+    /**
+     * @desc Gets every metric by name.
+     * @return The metrics, sorted by name.
+     */
+    Map<String, Long> getMetrics();
+
+    /**
+     * @desc Gets one metric.
+     * @param name The metric name, e.g. "search.p99Nanos".
+     * @return The value, or -1 if there is no metric with that name.
+     */
+    long getMetric(String name);
+
+    /**
+     * @desc Clears the counters and latency histograms. Gauges are unaffected.
+     */
+    void reset();
+}
@@ -0,0 +1,526 @@
+package com.bridgelabz.addressbook;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @desc Serves an AddressBookService as JSON over HTTP with the HTTP server built into the JDK. Each request
+ *       runs on a virtual thread of its own when the JVM has them (Java 21 and later), and on a fixed pool of
+ *       platform threads otherwise. Contacts are JSON objects with the fields firstName, lastName, address,
+ *       city, state, zip, phoneNumber and email.
+ *
+ *       GET    /books                                      Names of the Address Books
+ *       POST   /books                   {"name": ...}      Creates an Address Book
+ *       POST   /books/{book}/save                          Saves an Address Book to its file
+ *       GET    /books/{book}/contacts?sort=city            Every contact, sorted by name or by city, state, zip...
+ *       GET    /books/{book}/contacts?limit=&cursor=       One page of contacts in name order, with nextCursor
+ *       POST   /books/{book}/contacts   {contact}          Adds a contact
+ *       POST   /books/{book}/contacts   [{contact}, ...]   Adds many contacts in one batch; returns the counts
+ *       GET    /books/{book}/contacts/{first}/{last}       One contact
+ *       PUT    /books/{book}/contacts/{first}/{last}       Replaces every detail but the name of a contact
+ *       DELETE /books/{book}/contacts/{first}/{last}       Deletes a contact
+ *       GET    /books/{book}/search?prefix=&limit=         Contacts whose names, phone or email start with a prefix
+ *       GET    /search?city=  or  /search?state=           Persons in a city or state across all Address Books
+ *       GET    /counts?by=city  or  /counts?by=state       Number of persons per city or state
+ *       GET    /metrics                                    The AddressBookMetrics
+ *
+ *       Statuses map to 200 OK, 201 Created, 400 Bad Request (INVALID), 404 Not Found (BOOK_NOT_FOUND,
+ *       CONTACT_NOT_FOUND), 409 Conflict (ALREADY_EXISTS, DUPLICATE) and 500 (IO_ERROR); errors carry
+ *       {"status": ..., "error": ...}.
+ *
+ *       Usage: AddressBookServer [port] [host], with the -Daddressbook.* options of AddressBook. Every Address
+ *       Book is saved when the server stops.
+ */
+public class AddressBookServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final String DEFAULT_HOST = "localhost";
+    // Platform threads serving requests when virtual threads are not available
+    private static final int PLATFORM_THREADS = Integer.getInteger("addressbook.serverThreads",
+            Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+    private static final int BACKLOG = 1024;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+
+    static {
+        // The server writes the headers and the body of a response separately; with Nagle's algorithm on, a
+        // keep-alive client waits for a delayed ACK between them, which caps each connection at about 25
+        // requests per second
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final AddressBookService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    /**
+     * @desc Creates a server for a service, bound to an address but not yet started.
+     *
+     * @param service The service to serve.
+     * @param address The address to listen on; port 0 picks a free port.
+     * @throws IOException If the address cannot be bound.
+     */
+    public AddressBookServer(AddressBookService service, InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(address, BACKLOG);
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String host = args.length > 1 ? args[1] : DEFAULT_HOST;
+        boolean journaled = Boolean.getBoolean("addressbook.journal");
+        long cacheBytes = Long.getLong("addressbook.cacheMegabytes", 0) * 1024 * 1024;
+
+        AddressBookService service = new AddressBookService(cacheBytes, journaled);
+        AddressBookMetrics.getDefault().registerMBean();
+        if (Boolean.getBoolean("addressbook.preload")) {
+            AddressBook.printPreload(service.loadAllAddressBooks(Integer.getInteger("addressbook.loadThreads",
+                    Runtime.getRuntime().availableProcessors())));
+        }
+        AddressBookServer server = new AddressBookServer(service, new InetSocketAddress(host, port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            // Only books with unsaved changes, so unloaded books are not read back just to be written
+            ServiceResult<List<String>> saved = service.saveChangedAddressBooks();
+            if (!saved.isOk()) {
+                saved.getError().printStackTrace();
+                System.out.println(saved.getError().getMessage());
+            }
+            try {
+                service.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.out.println("Failed to close the journal of an Address Book.");
+            }
+        }, "address-book-server-shutdown"));
+        server.start();
+        System.out.println("Address Book server listening on http://" + host + ":" + server.getPort() + "/ with "
+                + (server.usesVirtualThreads() ? "a virtual thread per request." : PLATFORM_THREADS + " request threads."));
+    }
+
+    /**
+     * @desc Starts serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @desc Stops accepting requests, waits for the ones in progress, and stops the request threads.
+     * @param delaySeconds The most seconds to wait for requests in progress.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @desc Gets the port the server listens on, which was picked by the system if 0 was asked for.
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @desc Tells whether requests run on virtual threads.
+     * @return True on virtual threads, false on a pool of platform threads.
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @desc Creates the virtual-thread-per-task executor of Java 21 and later, looked up by reflection so the
+     *       project still builds and runs on older JDKs.
+     * @return The executor, or null if the JVM has no virtual threads.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadPool() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(PLATFORM_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "address-book-server-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @desc Routes a request by its path and method, and writes the response.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            List<String> path = pathSegments(exchange.getRequestURI().getRawPath());
+            Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            if (path.isEmpty()) {
+                sendError(exchange, 404, ServiceStatus.INVALID, "Unknown path.");
+                return;
+            }
+            switch (path.get(0)) {
+                case "books":
+                    handleBooks(exchange, method, path, query);
+                    break;
+                case "search":
+                    handleSearch(exchange, method, query);
+                    break;
+                case "counts":
+                    handleCounts(exchange, method, query);
+                    break;
+                case "metrics":
+                    if (requireMethod(exchange, method, "GET")) {
+                        send(exchange, 200, AddressBookMetrics.getDefault().getMetrics());
+                    }
+                    break;
+                default:
+                    sendError(exchange, 404, ServiceStatus.INVALID, "Unknown path.");
+            }
+        } catch (IllegalArgumentException e) {
+            // Malformed JSON, numbers or escapes in the request
+            sendError(exchange, 400, ServiceStatus.INVALID, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, ServiceStatus.IO_ERROR, "Internal error.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleBooks(HttpExchange exchange, String method, List<String> path, Map<String, String> query)
+            throws IOException {
+        if (path.size() == 1) {
+            if ("GET".equals(method)) {
+                send(exchange, 200, service.listAddressBooks());
+            } else if (requireMethod(exchange, method, "POST")) {
+                Object name = asObject(readBody(exchange)).get("name");
+                sendStatus(exchange, service.createAddressBook(name instanceof String ? (String) name : null));
+            }
+            return;
+        }
+        String book = path.get(1);
+        String resource = path.size() > 2 ? path.get(2) : "";
+        if (path.size() == 3 && "save".equals(resource)) {
+            if (requireMethod(exchange, method, "POST")) {
+                sendStatus(exchange, service.saveAddressBook(book));
+            }
+        } else if (path.size() == 3 && "search".equals(resource)) {
+            if (requireMethod(exchange, method, "GET")) {
+                String prefix = query.getOrDefault("prefix", "");
+                int limit = intParameter(query, "limit", DEFAULT_SEARCH_LIMIT);
+                sendResult(exchange, service.searchByName(book, prefix, limit));
+            }
+        } else if (path.size() == 3 && "contacts".equals(resource)) {
+            handleContacts(exchange, method, book, query);
+        } else if (path.size() == 5 && "contacts".equals(resource)) {
+            handleContact(exchange, method, book, path.get(3), path.get(4));
+        } else {
+            sendError(exchange, 404, ServiceStatus.INVALID, "Unknown path.");
+        }
+    }
+
+    private void handleContacts(HttpExchange exchange, String method, String book, Map<String, String> query)
+            throws IOException {
+        if ("GET".equals(method)) {
+            if (query.containsKey("limit") || query.containsKey("cursor")) {
+                ServiceResult<ContactPage> page = service.pageContacts(book, query.get("cursor"),
+                        intParameter(query, "limit", DEFAULT_SEARCH_LIMIT));
+                if (!page.isOk()) {
+                    sendResult(exchange, page);
+                    return;
+                }
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("contacts", page.getValue().getContacts());
+                body.put("nextCursor", page.getValue().getNextCursor());
+                send(exchange, 200, body);
+                return;
+            }
+            String sort = query.get("sort");
+            ContactField sortBy = null;
+            if (sort != null && !"name".equalsIgnoreCase(sort)) {
+                sortBy = field(sort);
+                if (sortBy == null) {
+                    sendError(exchange, 400, ServiceStatus.INVALID, "Unknown sort field '" + sort + "'.");
+                    return;
+                }
+            }
+            sendResult(exchange, service.listContacts(book, sortBy));
+        } else if (requireMethod(exchange, method, "POST")) {
+            Object body = readBody(exchange);
+            if (body instanceof List) {
+                // A batch: parsed up front, then added under one lock of the Address Book
+                List<?> items = (List<?>) body;
+                List<Contact> contacts = new ArrayList<>(items.size());
+                for (Object item : items) {
+                    contacts.add(item instanceof Map ? toContact((Map<?, ?>) item) : null);
+                }
+                ServiceResult<ImportSummary> added = service.addContacts(book, contacts.stream());
+                if (!added.isOk()) {
+                    sendResult(exchange, added);
+                    return;
+                }
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("added", added.getValue().getAdded());
+                summary.put("duplicates", added.getValue().getDuplicates());
+                summary.put("rejected", added.getValue().getRejected());
+                send(exchange, 200, summary);
+            } else {
+                ServiceStatus status = service.addContact(book, toContact(asObject(body)));
+                sendStatus(exchange, status == ServiceStatus.OK ? ServiceStatus.CREATED : status);
+            }
+        }
+    }
+
+    private void handleContact(HttpExchange exchange, String method, String book, String firstName, String lastName)
+            throws IOException {
+        switch (method) {
+            case "GET":
+                sendResult(exchange, service.getContact(book, firstName, lastName));
+                break;
+            case "PUT":
+                Map<?, ?> fields = asObject(readBody(exchange));
+                ContactUpdate update = new ContactUpdate(string(fields, "address"), string(fields, "city"),
+                        string(fields, "state"), string(fields, "zip"), string(fields, "phoneNumber"),
+                        string(fields, "email"));
+                sendStatus(exchange, service.editContact(book, firstName, lastName, update));
+                break;
+            case "DELETE":
+                sendStatus(exchange, service.deleteContact(book, firstName, lastName));
+                break;
+            default:
+                requireMethod(exchange, method, "GET, PUT, DELETE");
+        }
+    }
+
+    private void handleSearch(HttpExchange exchange, String method, Map<String, String> query) throws IOException {
+        if (!requireMethod(exchange, method, "GET")) {
+            return;
+        }
+        if (query.containsKey("city")) {
+            send(exchange, 200, service.findInCity(query.get("city")));
+        } else if (query.containsKey("state")) {
+            send(exchange, 200, service.findInState(query.get("state")));
+        } else {
+            sendError(exchange, 400, ServiceStatus.INVALID, "Give a city or a state to search for.");
+        }
+    }
+
+    private void handleCounts(HttpExchange exchange, String method, Map<String, String> query) throws IOException {
+        if (!requireMethod(exchange, method, "GET")) {
+            return;
+        }
+        String by = query.getOrDefault("by", "city");
+        if ("city".equalsIgnoreCase(by)) {
+            send(exchange, 200, service.countByCity());
+        } else if ("state".equalsIgnoreCase(by)) {
+            send(exchange, 200, service.countByState());
+        } else {
+            sendError(exchange, 400, ServiceStatus.INVALID, "Counts are by city or by state.");
+        }
+    }
+
+    /**
+     * @desc Builds a contact from its JSON object.
+     * @return The contact, or null if it has no first or last name.
+     */
+    private static Contact toContact(Map<?, ?> fields) {
+        String firstName = string(fields, "firstName");
+        String lastName = string(fields, "lastName");
+        if (firstName.trim().isEmpty() || lastName.trim().isEmpty()) {
+            return null;
+        }
+        return new Contact(firstName, lastName, string(fields, "address"), string(fields, "city"),
+                string(fields, "state"), string(fields, "zip"), string(fields, "phoneNumber"), string(fields, "email"));
+    }
+
+    /**
+     * @desc Reads a field of a JSON object as text; a missing field is empty, as it would be in the CSV file.
+     */
+    private static String string(Map<?, ?> fields, String name) {
+        Object value = fields.get(name);
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * @desc Maps a query parameter to the field of the same name, ignoring case, underscores and dashes.
+     * @return The field, or null if none has that name.
+     */
+    private static ContactField field(String name) {
+        String wanted = name.replace("_", "").replace("-", "");
+        for (ContactField field : ContactField.values()) {
+            if (field.name().replace("_", "").equalsIgnoreCase(wanted)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static Map<?, ?> asObject(Object body) {
+        if (!(body instanceof Map)) {
+            throw new IllegalArgumentException("Expected a JSON object.");
+        }
+        return (Map<?, ?>) body;
+    }
+
+    private static Object readBody(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        return Json.parse(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + name + "' must be a number.");
+        }
+    }
+
+    /**
+     * @desc Splits a raw path into its decoded segments. An encoded slash is left encoded, so it can never
+     *       become a separator in a name; the service rejects such a book name.
+     */
+    private static List<String> pathSegments(String rawPath) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : rawPath.split("/")) {
+            if (!segment.isEmpty()) {
+                // In a path a plus is a plus, not a space
+                String kept = segment.replace("+", "%2B").replace("%2F", "%252F").replace("%2f", "%252f");
+                segments.add(URLDecoder.decode(kept, StandardCharsets.UTF_8));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static boolean requireMethod(HttpExchange exchange, String method, String allowed) throws IOException {
+        if (allowed.equals(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, ServiceStatus.INVALID, "Method " + method + " is not allowed here.");
+        return false;
+    }
+
+    private static void sendResult(HttpExchange exchange, ServiceResult<?> result) throws IOException {
+        if (result.isOk()) {
+            send(exchange, 200, result.getValue());
+        } else {
+            sendStatus(exchange, result.getStatus());
+        }
+    }
+
+    private static void sendStatus(HttpExchange exchange, ServiceStatus status) throws IOException {
+        int code = httpCode(status);
+        if (code < 300) {
+            send(exchange, code, Collections.singletonMap("status", status.name()));
+        } else {
+            sendError(exchange, code, status, describe(status));
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int code, ServiceStatus status, String message)
+            throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status.name());
+        body.put("error", message);
+        send(exchange, code, body);
+    }
+
+    private static void send(HttpExchange exchange, int code, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static int httpCode(ServiceStatus status) {
+        switch (status) {
+            case OK:
+                return 200;
+            case CREATED:
+                return 201;
+            case INVALID:
+                return 400;
+            case BOOK_NOT_FOUND:
+            case CONTACT_NOT_FOUND:
+                return 404;
+            case ALREADY_EXISTS:
+            case DUPLICATE:
+                return 409;
+            default:
+                return 500;
+        }
+    }
+
+    private static String describe(ServiceStatus status) {
+        switch (status) {
+            case INVALID:
+                return "The request is missing a value or has a malformed one.";
+            case BOOK_NOT_FOUND:
+                return "Address Book not found.";
+            case CONTACT_NOT_FOUND:
+                return "Contact not found.";
+            case ALREADY_EXISTS:
+                return "An Address Book with that name already exists.";
+            case DUPLICATE:
+                return "Duplicate entry! This contact already exists in the address book.";
+            default:
+                return "The files of the Address Book could not be read or written.";
+        }
+    }
+}
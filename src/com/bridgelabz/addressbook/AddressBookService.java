@@ -0,0 +1,526 @@
+package com.bridgelabz.addressbook;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @desc Programmatic access to an AddressBookSystem and its Address Books, with no console input or output,
+ *       for servers, benchmarks and other programs. Edits are passed as value objects and every call returns
+ *       a ServiceStatus, or a ServiceResult holding the status and the value produced, instead of printing.
+ *       The service is thread-safe.
+ *
+ *       An Address Book is read from its file in the Contacts directory the first time a call uses it, and
+ *       written back by saveAddressBook. In journal mode its ContactJournal is opened instead, and
+ *       saveAddressBook flushes the changes to the log. With a memory budget the AddressBookCache reads and
+ *       writes the files itself.
+ *
+ *       An Address Book name becomes a file name, so it may only hold letters, digits, spaces, '_' and '-';
+ *       every call given any other name returns INVALID rather than touching a file outside the Contacts directory.
+ *
+ *       AddressBookService service = new AddressBookService();
+ *       service.createAddressBook("Friends");
+ *       service.addContact("Friends", new Contact("John", "Doe", "12 Main Road", "Pune", "MH", "411001",
+ *               "9876543210", "john@mail.com"));
+ *       ServiceResult<List<Contact>> inPune = service.listContacts("Friends", ContactField.CITY);
+ */
+public class AddressBookService implements Closeable {
+    // Address Book names are file names in the Contacts directory, so no separators or dots
+    private static final Pattern BOOK_NAME = Pattern.compile("[A-Za-z0-9 _-]+");
+
+    private final AddressBookSystem system;
+    private final boolean journaled;
+    private final boolean cached;
+    // Journals of the Address Books opened so far, in journal mode
+    private final Map<String, ContactJournal> journals = new ConcurrentHashMap<>();
+    // Address Books read from their CSV file so far, which are not read again
+    private final Map<String, Boolean> loaded = new ConcurrentHashMap<>();
+
+    /**
+     * @desc Constructs a service over a new system that keeps every Address Book in memory and saves them as CSV files.
+     */
+    public AddressBookService() {
+        this(new AddressBookSystem(), false, false);
+    }
+
+    /**
+     * @desc Constructs a service over a new system.
+     *
+     * @param memoryBudgetBytes The most heap the contacts in memory should take, or 0 to keep every Address Book
+     *                          in memory. Ignored in journal mode.
+     * @param journaled         Whether changes are appended to a ContactJournal instead of rewriting the CSV file.
+     */
+    public AddressBookService(long memoryBudgetBytes, boolean journaled) {
+        this(memoryBudgetBytes > 0 && !journaled ? new AddressBookSystem(memoryBudgetBytes) : new AddressBookSystem(),
+                journaled, memoryBudgetBytes > 0 && !journaled);
+    }
+
+    AddressBookService(AddressBookSystem system, boolean journaled, boolean cached) {
+        this.system = system;
+        this.journaled = journaled;
+        this.cached = cached;
+    }
+
+    /**
+     * @desc Adds every Address Book saved in the Contacts directory to the system and reads them on a pool of
+     *       the given size, as AddressBookSystem.loadAll does. An Address Book that fails to read is left empty
+     *       and is read again on its next use.
+     *
+     * @param threads The most Address Books read at once.
+     * @return OK with the names of the Address Books read, or registered to be read on first use with a memory
+     *         budget; IO_ERROR if any failed to read, with the failure of each as a suppressed exception.
+     */
+    public ServiceResult<List<String>> loadAllAddressBooks(int threads) {
+        Map<String, IOException> failures = new ConcurrentHashMap<>();
+        List<String> names;
+        try {
+            names = system.loadAll(threads, (addressBook, name) -> {
+                if (journaled) {
+                    journals.put(name, ContactJournal.open(addressBook, name));
+                } else {
+                    addressBook.load(name);
+                }
+            }, failures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ServiceResult.failed(ServiceStatus.IO_ERROR, new InterruptedIOException("Interrupted while loading the Address Books."));
+        }
+        if (!journaled && !cached) {
+            names.forEach(name -> loaded.put(name, Boolean.TRUE));
+        }
+        // Names already in the system were skipped, which is not a failure
+        failures.values().removeIf(e -> e instanceof FileAlreadyExistsException);
+        return failures.isEmpty() ? ServiceResult.ok(names) : failed("load", failures);
+    }
+
+    /**
+     * @desc Adds a new, empty Address Book.
+     *
+     * @param name The unique name of the Address Book.
+     * @return CREATED, ALREADY_EXISTS, or INVALID for an empty name or one with other characters than letters,
+     *         digits, spaces, '_' and '-'.
+     */
+    public ServiceStatus createAddressBook(String name) {
+        if (!isValidBookName(name)) {
+            return ServiceStatus.INVALID;
+        }
+        return system.createAddressBook(name) ? ServiceStatus.CREATED : ServiceStatus.ALREADY_EXISTS;
+    }
+
+    /**
+     * @desc Lists the Address Books in the system.
+     *
+     * @return The names of the Address Books, sorted.
+     */
+    public List<String> listAddressBooks() {
+        List<String> names = system.getAddressBookNames();
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * @desc Reads an Address Book from its files unless that was already done. Other calls do this on their
+     *       own, so this is only needed to learn what was read.
+     *
+     * @param name The name of the Address Book.
+     * @return OK with what was read from the CSV file, or with null if the file was read before, is missing
+     *         or is read by the cache or a journal; BOOK_NOT_FOUND or IO_ERROR otherwise.
+     */
+    public ServiceResult<ImportSummary> openAddressBook(String name) {
+        if (!isValidBookName(name)) {
+            return ServiceResult.of(ServiceStatus.INVALID);
+        }
+        AddressBookList addressBook = system.getAddressBook(name);
+        if (addressBook == null) {
+            return ServiceResult.of(ServiceStatus.BOOK_NOT_FOUND);
+        }
+        try {
+            return ServiceResult.ok(open(addressBook, name));
+        } catch (IOException | UncheckedIOException e) {
+            return ServiceResult.failed(ServiceStatus.IO_ERROR, e);
+        }
+    }
+
+    /**
+     * @desc Writes the contacts of an Address Book to its CSV file, or flushes its journal in journal mode.
+     *
+     * @param name The name of the Address Book.
+     * @return OK, BOOK_NOT_FOUND or IO_ERROR.
+     */
+    public ServiceStatus saveAddressBook(String name) {
+        return call(name, addressBook -> {
+            ContactJournal journal = journals.get(name);
+            if (journal != null) {
+                journal.flush();
+            } else {
+                addressBook.save(name);
+            }
+            return ServiceResult.ok(null);
+        }).getStatus();
+    }
+
+    /**
+     * @desc Saves every Address Book with changes not yet written, as saveAddressBook does, e.g. before exiting.
+     *       Address Books that were never read, are unloaded by the cache, or are unchanged since they were read
+     *       or last saved are skipped, so nothing is read back into memory only to be written out again.
+     *
+     * @return OK with the names of the Address Books saved; IO_ERROR if any failed to save, with the failure of
+     *         each as a suppressed exception.
+     */
+    public ServiceResult<List<String>> saveChangedAddressBooks() {
+        List<String> saved = new ArrayList<>();
+        Map<String, IOException> failures = new HashMap<>();
+        for (String name : listAddressBooks()) {
+            AddressBookList addressBook = system.getAddressBook(name);
+            ContactJournal journal = journals.get(name);
+            try {
+                if (journal != null) {
+                    journal.flush();
+                    saved.add(name);
+                } else if (!journaled && (cached || loaded.containsKey(name)) && addressBook.isChanged()) {
+                    addressBook.save(name);
+                    saved.add(name);
+                }
+            } catch (IOException e) {
+                failures.put(name, e);
+            }
+        }
+        return failures.isEmpty() ? ServiceResult.ok(saved) : failed("save", failures);
+    }
+
+    /**
+     * @desc Adds a contact to an Address Book.
+     *
+     * @param name    The name of the Address Book.
+     * @param contact The contact to add.
+     * @return OK, DUPLICATE if the Address Book has a contact with the same name, BOOK_NOT_FOUND, INVALID for a
+     *         contact without a name or with a null city, state or ZIP code, or IO_ERROR.
+     */
+    public ServiceStatus addContact(String name, Contact contact) {
+        if (!isValidContact(contact)) {
+            return ServiceStatus.INVALID;
+        }
+        return call(name, addressBook -> ServiceResult.of(
+                addressBook.add(contact) ? ServiceStatus.OK : ServiceStatus.DUPLICATE)).getStatus();
+    }
+
+    /**
+     * @desc Adds many contacts to an Address Book at once with AddressBookList.addAll.
+     *
+     * @param name     The name of the Address Book.
+     * @param contacts The contacts to add.
+     * @return OK with how many contacts were added, were duplicates and were rejected, where a contact is rejected
+     *         for the same reasons addContact returns INVALID; BOOK_NOT_FOUND or IO_ERROR.
+     */
+    public ServiceResult<ImportSummary> addContacts(String name, Stream<Contact> contacts) {
+        // AddressBookList.addAll counts a null as rejected
+        return call(name, addressBook -> ServiceResult.ok(addressBook.addAll(
+                contacts.map(contact -> isValidContact(contact) ? contact : null))));
+    }
+
+    /**
+     * @desc Adds the contacts of a CSV file to an Address Book with AddressBookList.importFromFile.
+     *
+     * @param name The name of the Address Book.
+     * @param file The CSV file.
+     * @return OK with how many contacts were added, were duplicates and were rejected; BOOK_NOT_FOUND, or
+     *         IO_ERROR if either the Address Book or the file cannot be read.
+     */
+    public ServiceResult<ImportSummary> importContacts(String name, File file) {
+        return call(name, addressBook -> ServiceResult.ok(addressBook.importFromFile(file)));
+    }
+
+    /**
+     * @desc Replaces every detail but the name of a contact.
+     *
+     * @param name      The name of the Address Book.
+     * @param firstName The first name of the contact.
+     * @param lastName  The last name of the contact.
+     * @param update    The new details.
+     * @return OK, CONTACT_NOT_FOUND, BOOK_NOT_FOUND, INVALID without a name, without an update or with a null
+     *         city, state or ZIP code, or IO_ERROR.
+     */
+    public ServiceStatus editContact(String name, String firstName, String lastName, ContactUpdate update) {
+        if (!isValidName(firstName) || !isValidName(lastName) || update == null
+                || update.getCity() == null || update.getState() == null || update.getZip() == null) {
+            return ServiceStatus.INVALID;
+        }
+        return call(name, addressBook -> ServiceResult.of(addressBook.edit(firstName, lastName, update)
+                ? ServiceStatus.OK : ServiceStatus.CONTACT_NOT_FOUND)).getStatus();
+    }
+
+    /**
+     * @desc Deletes a contact.
+     *
+     * @param name      The name of the Address Book.
+     * @param firstName The first name of the contact.
+     * @param lastName  The last name of the contact.
+     * @return OK, CONTACT_NOT_FOUND, BOOK_NOT_FOUND or IO_ERROR.
+     */
+    public ServiceStatus deleteContact(String name, String firstName, String lastName) {
+        return call(name, addressBook -> ServiceResult.of(addressBook.delete(firstName, lastName)
+                ? ServiceStatus.OK : ServiceStatus.CONTACT_NOT_FOUND)).getStatus();
+    }
+
+    /**
+     * @desc Looks up a contact by name.
+     *
+     * @param name      The name of the Address Book.
+     * @param firstName The first name of the contact.
+     * @param lastName  The last name of the contact.
+     * @return OK with the contact; CONTACT_NOT_FOUND, BOOK_NOT_FOUND or IO_ERROR.
+     */
+    public ServiceResult<Contact> getContact(String name, String firstName, String lastName) {
+        return call(name, addressBook -> {
+            Contact contact = addressBook.find(firstName, lastName);
+            return contact != null ? ServiceResult.ok(contact) : ServiceResult.of(ServiceStatus.CONTACT_NOT_FOUND);
+        });
+    }
+
+    /**
+     * @desc Lists every contact of an Address Book in the order of a field. City, state and ZIP code are read off
+     *       their indexes; other fields are sorted with a ContactQuery.
+     *
+     * @param name   The name of the Address Book.
+     * @param sortBy The field to order by, or null for name order.
+     * @return OK with the contacts; BOOK_NOT_FOUND or IO_ERROR.
+     */
+    public ServiceResult<List<Contact>> listContacts(String name, ContactField sortBy) {
+        return call(name, addressBook -> {
+            if (sortBy == null) {
+                return ServiceResult.ok(addressBook.streamByName().collect(Collectors.toList()));
+            }
+            switch (sortBy) {
+                case CITY:
+                    return ServiceResult.ok(addressBook.sortByCity());
+                case STATE:
+                    return ServiceResult.ok(addressBook.sortByState());
+                case ZIP:
+                    return ServiceResult.ok(addressBook.sortByZip());
+                default:
+                    return ServiceResult.ok(addressBook.query(ContactQuery.all().sortBy(sortBy)));
+            }
+        });
+    }
+
+    /**
+     * @desc Gets one page of the contacts of an Address Book in name order; see AddressBookList.pageByName.
+     *
+     * @param name     The name of the Address Book.
+     * @param cursor   The cursor of the previous page, or null for the first page.
+     * @param pageSize The most contacts on the page.
+     * @return OK with the page; INVALID for a cursor from elsewhere or a page size below 1, BOOK_NOT_FOUND or IO_ERROR.
+     */
+    public ServiceResult<ContactPage> pageContacts(String name, String cursor, int pageSize) {
+        if (pageSize < 1) {
+            return ServiceResult.of(ServiceStatus.INVALID);
+        }
+        return call(name, addressBook -> {
+            try {
+                return ServiceResult.ok(addressBook.pageByName(cursor, pageSize));
+            } catch (IllegalArgumentException e) {
+                return ServiceResult.failed(ServiceStatus.INVALID, e);
+            }
+        });
+    }
+
+    /**
+     * @desc Finds the contacts of an Address Book whose first name, last name, phone number or email starts
+     *       with a prefix, ignoring case.
+     *
+     * @param name   The name of the Address Book.
+     * @param prefix The prefix to look for.
+     * @param limit  The most contacts to return.
+     * @return OK with the matching contacts; BOOK_NOT_FOUND or IO_ERROR.
+     */
+    public ServiceResult<List<Contact>> searchByName(String name, String prefix, int limit) {
+        return call(name, addressBook -> ServiceResult.ok(addressBook.searchByName(prefix, limit)));
+    }
+
+    /**
+     * @desc Runs a query over the contacts of every Address Book.
+     *
+     * @param query The query.
+     * @return The matching contacts.
+     */
+    public List<Contact> query(ContactQuery query) {
+        return system.query(query);
+    }
+
+    /**
+     * @desc Finds the persons in a city across all Address Books.
+     *
+     * @param city The city.
+     * @return The persons in the city.
+     */
+    public List<Contact> findInCity(String city) {
+        return system.viewPersonsByCity(city);
+    }
+
+    /**
+     * @desc Finds the persons in a state across all Address Books.
+     *
+     * @param state The state.
+     * @return The persons in the state.
+     */
+    public List<Contact> findInState(String state) {
+        return system.viewPersonsByState(state);
+    }
+
+    /**
+     * @desc Streams the persons in a city across all Address Books as each Address Book is searched.
+     *
+     * @param city The city.
+     * @return A lazy stream of the persons in the city.
+     */
+    public Stream<Contact> streamInCity(String city) {
+        return system.streamContactsInCity(city);
+    }
+
+    /**
+     * @desc Streams the persons in a state across all Address Books as each Address Book is searched.
+     *
+     * @param state The state.
+     * @return A lazy stream of the persons in the state.
+     */
+    public Stream<Contact> streamInState(String state) {
+        return system.streamContactsInState(state);
+    }
+
+    /**
+     * @desc Counts the persons in each city across all Address Books.
+     *
+     * @return Map from city to number of persons.
+     */
+    public Map<String, Long> countByCity() {
+        return system.getCountByCity();
+    }
+
+    /**
+     * @desc Counts the persons in each state across all Address Books.
+     *
+     * @return Map from state to number of persons.
+     */
+    public Map<String, Long> countByState() {
+        return system.getCountByState();
+    }
+
+    /**
+     * @desc Closes the journals of the Address Books, in journal mode. Address Books are not saved.
+     * @throws IOException If a journal cannot be closed; the others are still closed.
+     */
+    @Override
+    public void close() throws IOException {
+        List<IOException> failures = new ArrayList<>();
+        for (ContactJournal journal : journals.values()) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                failures.add(e);
+            }
+        }
+        journals.clear();
+        if (!failures.isEmpty()) {
+            IOException failure = failures.get(0);
+            failures.subList(1, failures.size()).forEach(failure::addSuppressed);
+            throw failure;
+        }
+    }
+
+    /**
+     * @desc Runs an action on an Address Book, opening it first, and turns a missing book and IO failures
+     *       into status codes.
+     */
+    private <T> ServiceResult<T> call(String name, BookAction<T> action) {
+        if (!isValidBookName(name)) {
+            return ServiceResult.of(ServiceStatus.INVALID);
+        }
+        AddressBookList addressBook = system.getAddressBook(name);
+        if (addressBook == null) {
+            return ServiceResult.of(ServiceStatus.BOOK_NOT_FOUND);
+        }
+        try {
+            open(addressBook, name);
+            return action.apply(addressBook);
+        } catch (IOException | UncheckedIOException e) {
+            return ServiceResult.failed(ServiceStatus.IO_ERROR, e);
+        }
+    }
+
+    /**
+     * @desc Reads an Address Book from its files the first time it is used. Concurrent first uses wait for one read.
+     * @return What was read from the CSV file now, or null.
+     */
+    private ImportSummary open(AddressBookList addressBook, String name) throws IOException {
+        try {
+            if (journaled) {
+                journals.computeIfAbsent(name, key -> {
+                    try {
+                        return ContactJournal.open(addressBook, key);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return null;
+            }
+            if (cached || loaded.containsKey(name)) {
+                return null;
+            }
+            ImportSummary[] read = new ImportSummary[1];
+            loaded.computeIfAbsent(name, key -> {
+                try {
+                    read[0] = addressBook.load(key);
+                    return Boolean.TRUE;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return read[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @desc Reports the Address Books an action failed for as one IO_ERROR.
+     */
+    private static <T> ServiceResult<T> failed(String action, Map<String, IOException> failures) {
+        IOException failed = new IOException("Failed to " + action + " Address Books " + new TreeSet<>(failures.keySet()) + ".");
+        failures.values().forEach(failed::addSuppressed);
+        return ServiceResult.failed(ServiceStatus.IO_ERROR, failed);
+    }
+
+    private static boolean isValidName(String name) {
+        return name != null && !name.trim().isEmpty();
+    }
+
+    private static boolean isValidContact(Contact contact) {
+        return contact != null && isValidName(contact.firstName) && isValidName(contact.lastName)
+                && contact.city != null && contact.state != null && contact.zip != null;
+    }
+
+    private static boolean isValidBookName(String name) {
+        return isValidName(name) && BOOK_NAME.matcher(name).matches();
+    }
+
+    /**
+     * @desc An operation on one Address Book.
+     */
+    @FunctionalInterface
+    private interface BookAction<T> {
+        ServiceResult<T> apply(AddressBookList addressBook) throws IOException;
+    }
+}
@@ -1,28 +1,96 @@
 package com.bridgelabz.addressbook;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @desc The AddressBookSystem class represents a system that manages multiple Address Books.
  *       It maintains a dictionary of Address Book names to corresponding AddressBook objects.
+ *       The system is thread-safe: Address Books are looked up without locking, and each entry of the
+ *       City-Person and State-Person dictionaries is guarded by its own map bin, so writers to different
+ *       cities or states do not contend.
+ *       A system constructed with a memory budget reads Address Books from the Contacts directory on first use
+ *       and unloads the least recently used ones to stay within the budget; see AddressBookCache.
  */
 class AddressBookSystem {
     // Dictionary to store Address Books
     private Map<String, AddressBookList> addressBooks;
-    // Dictionary to store City-Person and State-Person associations
-    private Map<String, List<Contact>> cityPersonDictionary;
-    private Map<String, List<Contact>> statePersonDictionary;
+    // Dictionary to store City-Person and State-Person associations, kept current across all Address Books.
+    // Contacts are held by identity because the same name may appear in several Address Books.
+    private Map<String, Set<Contact>> cityPersonDictionary;
+    private Map<String, Set<Contact>> statePersonDictionary;
+    // Cross-book searches fan out over this pool once the system holds at least parallelThreshold Address Books
+    private final ForkJoinPool searchPool;
+    private final int parallelThreshold;
+    // Keeps the Address Books within a memory budget, or null to keep them all in memory
+    private final AddressBookCache cache;
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+    private static final String CONTACTS_DIRECTORY = "Contacts";
+    // Dictionary key of contacts without a city or state, since a ConcurrentHashMap cannot hold a null key
+    private static final String NO_VALUE = "\u0000";
+    private static final String FILE_EXTENSION = ".txt";
 
     /**
      * @desc Constructs a new AddressBookSystem with an empty dictionary of Address Books and dictionaries for City-Person and State-Person associations.
      */
     public AddressBookSystem() {
-        addressBooks = new HashMap<>();
-        cityPersonDictionary = new HashMap<>();
-        statePersonDictionary = new HashMap<>();
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @desc Constructs a new AddressBookSystem that runs cross-book searches on the given pool.
+     *
+     * @param searchPool        The pool used to search Address Books in parallel.
+     * @param parallelThreshold The minimum number of Address Books before a search runs in parallel.
+     */
+    public AddressBookSystem(ForkJoinPool searchPool, int parallelThreshold) {
+        this(searchPool, parallelThreshold, null);
+    }
+
+    /**
+     * @desc Constructs a new AddressBookSystem that keeps its Address Books within a memory budget. Address Books
+     *       saved in the Contacts directory are read on first use, and the least recently used ones are saved and
+     *       unloaded once the budget is exceeded. The City-Person and State-Person dictionaries are not kept, so
+     *       views and counts by city or state are gathered from the Address Books themselves.
+     *
+     * @param memoryBudgetBytes The most heap the contacts in memory should take.
+     */
+    public AddressBookSystem(long memoryBudgetBytes) {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD, new AddressBookCache(memoryBudgetBytes));
+    }
+
+    private AddressBookSystem(ForkJoinPool searchPool, int parallelThreshold, AddressBookCache cache) {
+        addressBooks = new ConcurrentHashMap<>();
+        cityPersonDictionary = new ConcurrentHashMap<>();
+        statePersonDictionary = new ConcurrentHashMap<>();
+        this.searchPool = searchPool;
+        this.parallelThreshold = parallelThreshold;
+        this.cache = cache;
+        AddressBookMetrics metrics = AddressBookMetrics.getDefault();
+        metrics.registerGauge("system.books", () -> addressBooks.size());
+        metrics.registerGauge("system.cities", () -> cityPersonDictionary.size());
+        metrics.registerGauge("system.states", () -> statePersonDictionary.size());
     }
 
     /**
@@ -31,35 +99,242 @@ class AddressBookSystem {
      * @param name The unique name of the Address Book.
      */
     public void addAddressBook(String name) {
-        if (!addressBooks.containsKey(name)) {
-            AddressBookList newAddressBook = new AddressBookList();
-            addressBooks.put(name, newAddressBook);
+        if (createAddressBook(name)) {
             System.out.println("Address Book '" + name + "' added to the system.");
         } else {
             System.out.println("An Address Book with the name '" + name + "' already exists.");
         }
     }
 
+    /**
+     * @desc Adds a new Address Book to the system without printing anything.
+     *
+     * @param name The unique name of the Address Book.
+     * @return True if the Address Book was added, false if the system already has one with that name.
+     */
+    boolean createAddressBook(String name) {
+        return register(name, false) != null;
+    }
+
+    /**
+     * @desc Creates an empty Address Book and adds it to the system without printing anything.
+     *
+     * @param name   The unique name of the Address Book.
+     * @param onDisk Whether the cache is to read the Address Book from its file on first use.
+     * @return The new Address Book, or null if the system already has one with that name.
+     */
+    private AddressBookList register(String name, boolean onDisk) {
+        AddressBookList[] created = new AddressBookList[1];
+        // Only one of several threads adding the same name wins, and the book is handed to the cache
+        // before any other thread can see it
+        addressBooks.computeIfAbsent(name, key -> {
+            AddressBookList newAddressBook = new AddressBookList();
+            if (cache == null) {
+                newAddressBook.addListener(new DictionaryUpdater());
+            } else {
+                cache.add(newAddressBook, name, onDisk);
+            }
+            created[0] = newAddressBook;
+            return newAddressBook;
+        });
+        if (created[0] != null) {
+            registerGauges(name, created[0]);
+        }
+        return created[0];
+    }
+
+    /**
+     * @desc Adds every Address Book saved in the Contacts directory to the system and loads them from their CSV files.
+     *       An Address Book whose file cannot be read is reported as failed.
+     *
+     * @param threads The most Address Books loaded at once.
+     * @return The names of the Address Books loaded.
+     */
+    public List<String> loadAllAddressBooks(int threads) {
+        return loadAllAddressBooks(threads, AddressBookList::load);
+    }
+
+    /**
+     * @desc Adds every Address Book saved in the Contacts directory to the system and loads them on a pool of
+     *       the given size, as loadAll does, and prints the Address Books that failed or were skipped and how
+     *       long the system took to become ready.
+     *
+     * @param threads The most Address Books loaded at once.
+     * @param loader  Loads one Address Book from its files.
+     * @return The names of the Address Books loaded.
+     */
+    public List<String> loadAllAddressBooks(int threads, AddressBookLoader loader) {
+        long start = System.nanoTime();
+        if (!new File(CONTACTS_DIRECTORY).isDirectory()) {
+            System.out.println("Contacts directory not found. No Address Books loaded.");
+            return Collections.emptyList();
+        }
+        Map<String, IOException> failures = new ConcurrentHashMap<>();
+        List<String> loaded;
+        try {
+            loaded = loadAll(threads, loader, failures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Interrupted while loading the Address Books.");
+            return Collections.emptyList();
+        }
+        failures.forEach((name, e) -> {
+            if (e instanceof FileAlreadyExistsException) {
+                System.out.println("An Address Book with the name '" + name + "' already exists. Skipped loading it.");
+            } else {
+                e.printStackTrace();
+                System.out.println("Failed to load Address Book '" + name + "'.");
+            }
+        });
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (cache != null) {
+            System.out.printf("Registered %d Address Books in %d ms; each is loaded on first use.%n", loaded.size(), millis);
+            return loaded;
+        }
+        long contacts = 0;
+        for (String name : loaded) {
+            contacts += addressBooks.get(name).size();
+        }
+        System.out.printf("Loaded %d Address Books (%d contacts) on %d threads in %d ms; ready %d ms after startup.%n",
+                loaded.size(), contacts, Math.max(1, threads), millis,
+                ManagementFactory.getRuntimeMXBean().getUptime());
+        return loaded;
+    }
+
+    /**
+     * @desc Adds every Address Book saved in the Contacts directory to the system and loads them on a pool of
+     *       the given size, printing nothing. The largest files are started first, so one big Address Book found
+     *       late does not hold up the end of the load. An Address Book that fails to load is left registered but
+     *       empty. With a memory budget, the Address Books are only registered, and each is read on first use.
+     *
+     * @param threads  The most Address Books loaded at once.
+     * @param loader   Loads one Address Book from its files.
+     * @param failures Receives the exception of each Address Book that failed to load, and a
+     *                 FileAlreadyExistsException for each name already in the system, which is skipped.
+     * @return The names of the Address Books loaded, or registered with a memory budget; none if the
+     *         Contacts directory is missing.
+     * @throws InterruptedException If interrupted while waiting for the loads.
+     */
+    List<String> loadAll(int threads, AddressBookLoader loader, Map<String, IOException> failures)
+            throws InterruptedException {
+        File[] files = new File(CONTACTS_DIRECTORY).listFiles(
+                file -> file.isFile() && file.getName().endsWith(FILE_EXTENSION));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        if (cache != null) {
+            // Each Address Book is read on first use instead, within the memory budget
+            List<String> registered = new ArrayList<>();
+            for (File file : files) {
+                String name = bookName(file);
+                if (register(name, true) != null) {
+                    registered.add(name);
+                } else {
+                    failures.put(name, new FileAlreadyExistsException(name));
+                }
+            }
+            return registered;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::length).reversed());
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService loadPool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "address-book-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<String> names = new ArrayList<>();
+        List<Future<Boolean>> loads = new ArrayList<>();
+        try {
+            for (File file : files) {
+                String name = bookName(file);
+                AddressBookList addressBook = register(name, false);
+                if (addressBook == null) {
+                    failures.put(name, new FileAlreadyExistsException(name));
+                    continue;
+                }
+                names.add(name);
+                loads.add(loadPool.submit(() -> {
+                    try {
+                        loader.load(addressBook, name);
+                        return true;
+                    } catch (IOException e) {
+                        failures.put(name, e);
+                        return false;
+                    }
+                }));
+            }
+
+            List<String> loaded = new ArrayList<>(names.size());
+            for (int i = 0; i < loads.size(); i++) {
+                if (loads.get(i).get()) {
+                    loaded.add(names.get(i));
+                }
+            }
+            return loaded;
+        } catch (ExecutionException e) {
+            // The loader itself handles IOException, so this is a bug in it
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            loadPool.shutdownNow();
+        }
+    }
+
+    private static String bookName(File file) {
+        String fileName = file.getName();
+        return fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+    }
+
+    /**
+     * @desc Publishes the number of contacts of an Address Book and the sizes of its indexes as metrics.
+     */
+    private static void registerGauges(String name, AddressBookList addressBook) {
+        AddressBookMetrics metrics = AddressBookMetrics.getDefault();
+        String prefix = "book." + name + ".";
+        metrics.registerGauge(prefix + "contacts", addressBook::knownSize);
+        metrics.registerGauge(prefix + "cities", () -> addressBook.indexKeys(ContactField.CITY));
+        metrics.registerGauge(prefix + "states", () -> addressBook.indexKeys(ContactField.STATE));
+        metrics.registerGauge(prefix + "zips", () -> addressBook.indexKeys(ContactField.ZIP));
+    }
+
     /**
      * @desc Displays all Address Books in the system.
      */
     public void displayAllAddressBooks() {
         System.out.println("Address Books in the System:");
-        for (String name : addressBooks.keySet()) {
+        for (String name : getAddressBookNames()) {
             System.out.println(name);
         }
         System.out.println("-------------------------");
     }
 
     /**
-     * @desc Gets the Address Book with the specified name from the system.
+     * @desc Gets the names of the Address Books in the system.
+     *
+     * @return The names, in no particular order.
+     */
+    List<String> getAddressBookNames() {
+        return new ArrayList<>(addressBooks.keySet());
+    }
+
+    /**
+     * @desc Gets the Address Book with the specified name from the system. With a memory budget, an Address Book
+     *       saved in the Contacts directory but not yet in the system is added to it, to be read on first use.
      *
      * @param name The name of the Address Book to get.
      * @return The AddressBook object.
      */
     public AddressBookList getAddressBook(String name) {
-
-        return addressBooks.get(name);
+        AddressBookList addressBook = addressBooks.get(name);
+        if (cache != null) {
+            if (addressBook == null && new File(CONTACTS_DIRECTORY, name + FILE_EXTENSION).isFile()) {
+                register(name, true);
+                addressBook = addressBooks.get(name);
+            }
+            // Books grow between loads, so the budget is also checked here, with no book locked
+            cache.trim(null);
+        }
+        return addressBook;
     }
 
     /**
@@ -69,13 +344,7 @@ class AddressBookSystem {
      * @return List of persons in the specified city across all Address Books.
      */
     public List<Contact> getContactsInCity(String cityName) {
-        List<Contact> personsInCity = addressBooks.values()
-                .stream()
-                .flatMap(addressBookList -> addressBookList.searchPersonInCity(cityName).stream())
-                .collect(Collectors.toList());
-
-        cityPersonDictionary.put(cityName, personsInCity);
-        return personsInCity;
+        return searchAllAddressBooks(addressBookList -> addressBookList.searchPersonInCity(cityName));
     }
 
     /**
@@ -85,31 +354,151 @@ class AddressBookSystem {
      * @return List of persons in the specified state across all Address Books.
      */
     public List<Contact> getContactsInState(String stateName) {
-        List<Contact> personsInState = addressBooks.values()
-                .stream()
-                .flatMap(addressBookList -> addressBookList.searchPersonInState(stateName).stream())
-                .collect(Collectors.toList());
+        return searchAllAddressBooks(addressBookList -> addressBookList.searchPersonInState(stateName));
+    }
+
+    /**
+     * @desc Streams the persons in a city across all Address Books. Books are searched one at a time as the
+     *       stream is read, so only the matches of one book are held in memory at once.
+     *
+     * @param cityName The city to search for.
+     * @return A lazy stream of persons in the specified city.
+     */
+    public Stream<Contact> streamContactsInCity(String cityName) {
+        return addressBooks.values().stream().flatMap(addressBookList -> addressBookList.searchPersonInCity(cityName).stream());
+    }
+
+    /**
+     * @desc Streams the persons in a state across all Address Books, one book at a time.
+     *
+     * @param stateName The state to search for.
+     * @return A lazy stream of persons in the specified state.
+     */
+    public Stream<Contact> streamContactsInState(String stateName) {
+        return addressBooks.values().stream().flatMap(addressBookList -> addressBookList.searchPersonInState(stateName).stream());
+    }
 
-        statePersonDictionary.put(stateName, personsInState);
-        return personsInState;
+    /**
+     * @desc Runs a query across all Address Books. Each book runs the query with its own plan and returns
+     *       at most one page worth of rows; the rows are then merged, sorted and paged as a whole.
+     *
+     * @param query The query to run.
+     * @return List of matching persons across all Address Books, sorted and paged as the query asks.
+     */
+    public List<Contact> query(ContactQuery query) {
+        ContactQuery perBook = query.withoutOffset();
+        List<Contact> results = searchAllAddressBooks(addressBookList -> addressBookList.query(perBook));
+        if (query.getSortField() != null) {
+            results.sort(query.comparator());
+        }
+        int from = Math.min(query.getOffset(), results.size());
+        int to = (int) Math.min(results.size(), (long) from + query.getLimit());
+        return new ArrayList<>(results.subList(from, to));
     }
 
     /**
-     * @desc View persons by city from the City-Person dictionary.
+     * @desc Counts the persons matching the filter of a query across all Address Books.
+     *
+     * @param query The query whose matches are counted.
+     * @return The number of matching persons.
+     */
+    public long count(ContactQuery query) {
+        return addressBooks.values().stream().mapToLong(addressBookList -> addressBookList.count(query)).sum();
+    }
+
+    /**
+     * @desc Describes how a query would run on each Address Book, before the results are merged and paged.
+     *
+     * @param query The query to plan.
+     * @return The plan of every Address Book, under its name.
+     */
+    public String explain(ContactQuery query) {
+        ContactQuery perBook = query.withoutOffset();
+        StringBuilder result = new StringBuilder(query.toString()).append("\n");
+        addressBooks.forEach((name, addressBookList) ->
+                result.append("Address Book '").append(name).append("':\n").append(addressBookList.explain(perBook)));
+        return result.toString();
+    }
+
+    /**
+     * @desc Search for persons across all Address Books whose first name, last name, phone number or email
+     *       starts with the given text, ignoring case.
+     *
+     * @param prefix The text to search for.
+     * @param limit  The maximum number of persons to return.
+     * @return List of matching persons, ordered by the matching name, phone number or email.
+     */
+    public List<Contact> searchByName(String prefix, int limit) {
+        return topMatches(searchAllAddressBooks(addressBookList -> addressBookList.prefixMatches(prefix, limit)), limit);
+    }
+
+    /**
+     * @desc Search for persons across all Address Books whose first name, last name, phone number or email is
+     *       within a few typos of the given text, ignoring case.
+     *
+     * @param query       The text to search for.
+     * @param maxDistance The number of inserted, deleted or substituted characters tolerated, from 0 to 2.
+     * @param limit       The maximum number of persons to return.
+     * @return List of matching persons, closest first.
+     */
+    public List<Contact> searchByNameFuzzy(String query, int maxDistance, int limit) {
+        return topMatches(searchAllAddressBooks(addressBookList -> addressBookList.fuzzyMatches(query, maxDistance, limit)), limit);
+    }
+
+    /**
+     * @desc Merges the best matches of every Address Book into the overall best. Each book returns at most
+     *       limit matches, so only books x limit matches are sorted.
+     */
+    private static List<Contact> topMatches(List<NameSearchIndex.Match> matches, int limit) {
+        matches.sort(null);
+        return AddressBookList.contactsOf(matches.subList(0, Math.min(limit, matches.size())));
+    }
+
+    /**
+     * @desc Runs a search on every Address Book and concatenates the results. Below the parallel threshold the
+     *       books are searched one after another; above it the work is split across the search pool, and each
+     *       worker collects into its own list so the results are merged without contention.
+     *
+     * @param search The search to run on each Address Book.
+     * @return List of results found across all Address Books.
+     */
+    private <T> List<T> searchAllAddressBooks(Function<AddressBookList, List<T>> search) {
+        if (addressBooks.size() < parallelThreshold) {
+            return addressBooks.values()
+                    .stream()
+                    .flatMap(addressBookList -> search.apply(addressBookList).stream())
+                    .collect(Collectors.toList());
+        }
+        return searchPool.submit(() -> addressBooks.values()
+                .parallelStream()
+                .flatMap(addressBookList -> search.apply(addressBookList).stream())
+                .collect(Collectors.toList()))
+                .join();
+    }
+
+    /**
+     * @desc View persons by city from the City-Person dictionary, which is kept current across all Address Books.
      * @param cityName The city to view persons for.
      * @return List of persons in the specified city.
      */
     public List<Contact> viewPersonsByCity(String cityName) {
-        return cityPersonDictionary.getOrDefault(cityName, List.of());
+        if (cache != null) {
+            // Unloaded books with nobody in the city are skipped without being read
+            return getContactsInCity(cityName);
+        }
+        return copyDictionaryEntry(cityPersonDictionary, cityName);
     }
 
     /**
-     * @desc View persons by state from the State-Person dictionary.
+     * @desc View persons by state from the State-Person dictionary, which is kept current across all Address Books.
      * @param stateName The state to view persons for.
      * @return List of persons in the specified state.
      */
     public List<Contact> viewPersonsByState(String stateName) {
-        return statePersonDictionary.getOrDefault(stateName, List.of());
+        if (cache != null) {
+            return getContactsInState(stateName);
+        }
+        return copyDictionaryEntry(statePersonDictionary, stateName);
     }
 
     /**
@@ -118,10 +507,11 @@ class AddressBookSystem {
      * @return Map containing the count of contact persons by city.
      */
     public Map<String, Long> getCountByCity() {
-        return addressBooks.values()
-                .stream()
-                .flatMap(addressBookList -> addressBookList.getCountByCity().entrySet().stream())
-                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.counting()));
+        if (cache != null) {
+            // Unloaded books answer from the counts kept when they were unloaded
+            return mergeCounts(AddressBookList::getCountByCity);
+        }
+        return countDictionary(cityPersonDictionary);
     }
 
     /**
@@ -130,11 +520,97 @@ class AddressBookSystem {
      * @return Map containing the count of contact persons by state.
      */
     public Map<String, Long> getCountByState() {
-        return addressBooks.values()
-                .stream()
-                .flatMap(addressBookList -> addressBookList.getCountByState().entrySet().stream())
-                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.counting()));
+        if (cache != null) {
+            return mergeCounts(AddressBookList::getCountByState);
+        }
+        return countDictionary(statePersonDictionary);
+    }
+
+    /**
+     * @desc Adds up the counts of every Address Book.
+     * @return Map containing the number of persons per key across all Address Books.
+     */
+    private Map<String, Long> mergeCounts(Function<AddressBookList, Map<String, Long>> counts) {
+        Map<String, Long> merged = new HashMap<>();
+        for (AddressBookList addressBookList : addressBooks.values()) {
+            counts.apply(addressBookList).forEach((key, count) -> merged.merge(key, count, Long::sum));
+        }
+        return merged;
+    }
+
+    /**
+     * @desc Builds a count map from the sizes of the dictionary entries. The entries are updated on every
+     *       change to any Address Book, so this costs O(distinct keys) rather than a scan of every contact.
+     * @return Map containing the number of persons per key across all Address Books.
+     */
+    private static Map<String, Long> countDictionary(Map<String, Set<Contact>> dictionary) {
+        Map<String, Long> counts = new HashMap<>(dictionary.size() * 4 / 3 + 1);
+        for (String key : dictionary.keySet()) {
+            dictionary.computeIfPresent(key, (k, persons) -> {
+                // Counted under null, as AddressBookList.getCountByCity does
+                counts.put(NO_VALUE.equals(k) ? null : k, (long) persons.size());
+                return persons;
+            });
+        }
+        return counts;
+    }
+
+    /**
+     * @desc Copies a dictionary entry while holding its bin lock, so a concurrent update cannot tear the copy.
+     * @return List of persons stored under the key.
+     */
+    private static List<Contact> copyDictionaryEntry(Map<String, Set<Contact>> dictionary, String key) {
+        List<Contact> persons = new ArrayList<>();
+        dictionary.computeIfPresent(dictionaryKey(key), (k, entry) -> {
+            persons.addAll(entry);
+            return entry;
+        });
+        return persons;
+    }
+
+    /**
+     * @desc Adds a contact to a dictionary entry. The update runs atomically for the key.
+     */
+    private static void addToDictionary(Map<String, Set<Contact>> dictionary, String key, Contact contact) {
+        dictionary.compute(dictionaryKey(key), (k, persons) -> {
+            if (persons == null) {
+                persons = Collections.newSetFromMap(new IdentityHashMap<>());
+            }
+            persons.add(contact);
+            return persons;
+        });
+    }
+
+    /**
+     * @desc Removes a contact from a dictionary entry, dropping the entry once it is empty. The update runs atomically for the key.
+     */
+    private static void removeFromDictionary(Map<String, Set<Contact>> dictionary, String key, Contact contact) {
+        dictionary.computeIfPresent(dictionaryKey(key), (k, persons) -> {
+            persons.remove(contact);
+            return persons.isEmpty() ? null : persons;
+        });
     }
 
+    private static String dictionaryKey(String value) {
+        return value == null ? NO_VALUE : value;
+    }
+
+    /**
+     * @desc Keeps the City-Person and State-Person dictionaries in step with the changes made to an Address Book.
+     */
+    private class DictionaryUpdater implements AddressBookListener {
+
+        @Override
+        public void contactAdded(Contact contact) {
+            addToDictionary(cityPersonDictionary, contact.city, contact);
+            addToDictionary(statePersonDictionary, contact.state, contact);
+        }
+
+        @Override
+        public void contactRemoved(Contact contact) {
+            removeFromDictionary(cityPersonDictionary, contact.city, contact);
+            removeFromDictionary(statePersonDictionary, contact.state, contact);
+        }
+    }
 }
 
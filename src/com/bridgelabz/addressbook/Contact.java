@@ -9,6 +9,8 @@ import java.util.Objects;
  *       city, state, ZIP code, phone number, and email.
  *       This class provides a constructor to initialize a new contact
  *       and a method to display the contact information.
+ *       City, state and ZIP code are taken from a shared StringPool, so
+ *       contacts in the same place share one copy of each string.
  */
 public class Contact implements Comparable<Contact>, Serializable{
     // Fields representing contact information
@@ -20,6 +22,8 @@ public class Contact implements Comparable<Contact>, Serializable{
     String zip;
     String phoneNumber;
     String email;
+    // Case-folded "firstName lastName", built on first comparison and reused for every later one
+    private transient String sortKey;
 
     /**
      * @desc Constructs a new Contact with the specified information.
@@ -37,9 +41,9 @@ public class Contact implements Comparable<Contact>, Serializable{
         this.firstName = firstName;
         this.lastName = lastName;
         this.address = address;
-        this.city = city;
-        this.state = state;
-        this.zip = zip;
+        this.city = StringPool.LOCATIONS.intern(city);
+        this.state = StringPool.LOCATIONS.intern(state);
+        this.zip = StringPool.LOCATIONS.intern(zip);
         this.phoneNumber = phoneNumber;
         this.email = email;
     }
@@ -115,11 +119,29 @@ public class Contact implements Comparable<Contact>, Serializable{
      */
     @Override
     public int compareTo(Contact other) {
-        // Compare by the person's full name (combination of first name and last name)
-        String fullName1 = this.firstName + " " + this.lastName;
-        String fullName2 = other.firstName + " " + other.lastName;
+        // Compare by the person's full name (combination of first name and last name), ignoring case
+        return getSortKey().compareTo(other.getSortKey());
+    }
 
-        return fullName1.compareToIgnoreCase(fullName2);
+    /**
+     * @desc Gets the collation key of the contact: its full name with every character folded the same way
+     *       String.compareToIgnoreCase folds it, so comparing keys orders contacts exactly as comparing the
+     *       full names ignoring case would, without building new strings on every comparison.
+     *
+     * @return The collation key of the contact.
+     */
+    String getSortKey() {
+        String key = sortKey;
+        if (key == null) {
+            String fullName = firstName + " " + lastName;
+            char[] folded = new char[fullName.length()];
+            for (int i = 0; i < folded.length; i++) {
+                folded[i] = Character.toLowerCase(Character.toUpperCase(fullName.charAt(i)));
+            }
+            key = new String(folded);
+            sortKey = key;
+        }
+        return key;
     }
 
     /**
@@ -150,21 +172,22 @@ public class Contact implements Comparable<Contact>, Serializable{
 
     /**
      * @desc Converts the contact information into a CSV (Comma-Separated Values) format string.
+     *       Fields containing commas, quotes or line breaks are quoted.
      * @return A CSV format string representing the contact information.
      */
     public String toCsvString() {
-        return String.format("%s,%s,%s,%s,%s,%s,%s,%s", firstName, lastName, address, city, state, zip, phoneNumber, email);
+        return ContactCsvWriter.toCsv(this);
     }
 
     /**
      * @desc Creates a new Contact object by parsing the information from a CSV format string.
      * @param csvString The CSV format string containing contact information.
      * @return A new Contact object with information parsed from the CSV string.
+     * @throws IllegalArgumentException If the string does not hold exactly eight fields.
      */
     public static Contact fromCsvString(String csvString) {
-        String[] parts = csvString.split(",");
-        // Assuming the order in CSV is: firstName, lastName, address, city, state, zip, phoneNumber, email
-        return new Contact(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6], parts[7]);
+        // The order in CSV is: firstName, lastName, address, city, state, zip, phoneNumber, email
+        return ContactCsvReader.parse(csvString);
     }
 }
 
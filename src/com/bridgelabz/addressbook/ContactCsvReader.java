@@ -0,0 +1,220 @@
+package com.bridgelabz.addressbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * @desc Streams contacts out of CSV text. Lines are parsed straight from a reusable char buffer,
+ *       one String per field and no regex, and rows with the wrong number of fields are counted
+ *       as rejected instead of failing the whole load. Fields may be quoted as written by
+ *       ContactCsvWriter, in which case they can hold commas, quotes and line breaks.
+ *       City, state and ZIP code are looked up in the shared StringPool straight from the buffer,
+ *       so repeated values do not allocate a new String per row.
+ */
+public class ContactCsvReader implements Closeable {
+    // firstName, lastName, address, city, state, zip, phoneNumber, email
+    static final int FIELD_COUNT = 8;
+    private static final int FIRST_LOCATION_FIELD = 3;
+    private static final int LAST_LOCATION_FIELD = 5;
+    private static final int LOCATION_CACHE_SIZE = 4096;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private final String[] fields = new String[FIELD_COUNT];
+    // Recently seen city, state and ZIP code strings
+    private final String[] locationCache = new String[LOCATION_CACHE_SIZE];
+    private long rowsRead;
+    private long rejectedRows;
+
+    /**
+     * @desc Constructs a reader over CSV text.
+     * @param reader The source of the CSV text.
+     */
+    public ContactCsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @desc Reads the next well-formed contact, skipping blank lines and rejected rows.
+     * @return The next contact, or null at the end of the input.
+     * @throws IOException If the underlying reader fails.
+     */
+    public Contact next() throws IOException {
+        while (true) {
+            int lineEnd = findLineEnd();
+            if (lineEnd < 0) {
+                return null;
+            }
+            int lineStart = position;
+            int nextLine = lineEnd < limit ? lineEnd + 1 : lineEnd;
+            if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            position = nextLine;
+            if (lineEnd == lineStart) {
+                continue;
+            }
+            rowsRead++;
+            if (splitFields(buffer, lineStart, lineEnd, fields, locationCache)) {
+                return new Contact(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6], fields[7]);
+            }
+            rejectedRows++;
+        }
+    }
+
+    /**
+     * @desc Gets the number of non-blank rows read so far, including rejected ones.
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * @desc Gets the number of rows rejected so far because they did not hold exactly eight fields.
+     */
+    public long getRejectedRows() {
+        return rejectedRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * @desc Parses a single CSV line into a contact.
+     * @param line The CSV line.
+     * @return The parsed contact.
+     * @throws IllegalArgumentException If the line does not hold exactly eight fields.
+     */
+    static Contact parse(String line) {
+        char[] chars = line.toCharArray();
+        String[] parts = new String[FIELD_COUNT];
+        if (!splitFields(chars, 0, chars.length, parts, null)) {
+            throw new IllegalArgumentException("Expected " + FIELD_COUNT + " comma-separated fields: " + line);
+        }
+        return new Contact(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6], parts[7]);
+    }
+
+    /**
+     * @desc Splits chars[start, end) on commas into exactly FIELD_COUNT fields, unquoting quoted fields.
+     *       Unquoted location fields are resolved through the location pool when a cache is given.
+     * @return True if the line held exactly FIELD_COUNT well-formed fields.
+     */
+    private static boolean splitFields(char[] chars, int start, int end, String[] target, String[] locationCache) {
+        int field = 0;
+        int i = start;
+        while (true) {
+            if (field == FIELD_COUNT) {
+                return false;
+            }
+            if (i < end && chars[i] == '"') {
+                // Quoted field: runs to the closing quote, with "" standing for one quote
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= end) {
+                        return false;
+                    }
+                    if (chars[i] == '"') {
+                        if (i + 1 < end && chars[i + 1] == '"') {
+                            value.append('"');
+                            i += 2;
+                        } else {
+                            i++;
+                            break;
+                        }
+                    } else {
+                        value.append(chars[i++]);
+                    }
+                }
+                if (i < end && chars[i] != ',') {
+                    return false;
+                }
+                target[field++] = value.toString();
+            } else {
+                int fieldStart = i;
+                while (i < end && chars[i] != ',') {
+                    i++;
+                }
+                if (locationCache != null && field >= FIRST_LOCATION_FIELD && field <= LAST_LOCATION_FIELD) {
+                    target[field++] = StringPool.LOCATIONS.intern(chars, fieldStart, i - fieldStart, locationCache);
+                } else {
+                    target[field++] = new String(chars, fieldStart, i - fieldStart);
+                }
+            }
+            if (i == end) {
+                return field == FIELD_COUNT;
+            }
+            // Skip the comma
+            i++;
+        }
+    }
+
+    /**
+     * @desc Makes sure a whole record starting at position is in the buffer, refilling and growing it as needed.
+     *       Line breaks inside quoted fields do not end the record. As in splitFields, a quote only opens a
+     *       quoted field at the start of a field, so older files with a stray quote in a value, e.g. 12 5" St,
+     *       still end at their line break.
+     * @return Index of the terminating '\n' (or limit for a last line without one), or -1 at the end of the input.
+     */
+    private int findLineEnd() throws IOException {
+        int scanFrom = position;
+        boolean inQuotes = false;
+        boolean fieldStart = true;
+        // Just after a closing quote, where a second quote is an escaped one and reopens the field
+        boolean afterQuote = false;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                char c = buffer[i];
+                if (inQuotes) {
+                    if (c == '"') {
+                        inQuotes = false;
+                        afterQuote = true;
+                    }
+                    continue;
+                }
+                if (c == '"' && (fieldStart || afterQuote)) {
+                    inQuotes = true;
+                } else if (c == '\n') {
+                    return i;
+                }
+                fieldStart = c == ',';
+                afterQuote = false;
+            }
+            if (endOfInput) {
+                return position < limit ? limit : -1;
+            }
+            scanFrom = limit - position;
+            fill();
+        }
+    }
+
+    /**
+     * @desc Moves the unread part of the buffer to the front and reads more input behind it.
+     */
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            // A single line fills the whole buffer
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, position, larger, 0, remaining);
+            buffer = larger;
+        } else {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.bridgelabz.addressbook;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @desc Writes contacts as CSV lines through one large reusable char buffer, without format strings
+ *       or per-row String building. Fields holding commas, quotes or line breaks are quoted, with
+ *       embedded quotes doubled, so every row reads back through ContactCsvReader unchanged.
+ */
+public class ContactCsvWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final Writer writer;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private long rowsWritten;
+
+    /**
+     * @desc Constructs a writer over a character sink.
+     * @param writer The sink the CSV text is written to.
+     */
+    public ContactCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * @desc Appends one contact as a CSV line.
+     * @param contact The contact to write.
+     * @throws IOException If the underlying writer fails.
+     */
+    public void write(Contact contact) throws IOException {
+        writeField(contact.firstName);
+        writeChar(',');
+        writeField(contact.lastName);
+        writeChar(',');
+        writeField(contact.address);
+        writeChar(',');
+        writeField(contact.city);
+        writeChar(',');
+        writeField(contact.state);
+        writeChar(',');
+        writeField(contact.zip);
+        writeChar(',');
+        writeField(contact.phoneNumber);
+        writeChar(',');
+        writeField(contact.email);
+        writeChar('\n');
+        rowsWritten++;
+    }
+
+    /**
+     * @desc Gets the number of contacts written so far.
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.write(buffer, 0, position);
+        position = 0;
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @desc Writes contacts to a CSV file. The contacts are streamed into a temporary file which is synced
+     *       and then renamed over the target, so a failed write leaves the previous file intact. Each write has
+     *       its own temporary file in the target's directory, so concurrent saves of the same file never write
+     *       into each other; the last one to finish replaces the file. The file keeps the permissions it had, and
+     *       a new file gets the usual ones for the process, as when it was written in place.
+     * @param file     The CSV file to write.
+     * @param contacts The contacts to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void writeAtomically(File file, Collection<Contact> contacts) throws IOException {
+        File tempFile = createTempFile(file);
+        try {
+            try (FileOutputStream output = new FileOutputStream(tempFile);
+                 ContactCsvWriter writer = new ContactCsvWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (Contact contact : contacts) {
+                    writer.write(contact);
+                }
+                writer.flush();
+                output.getFD().sync();
+            }
+            replace(tempFile, file);
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * @desc Renames a finished temporary file over the file it replaces, atomically where the file system can.
+     * @param tempFile The temporary file, from createTempFile.
+     * @param file     The file to replace.
+     */
+    static void replace(File tempFile, File file) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @desc Creates an empty file with a new name next to the given one. Unlike Files.createTempFile, which makes
+     *       the file readable by its owner only, the file is created with the default permissions, then given the
+     *       permissions of the given file if it exists and the file system has POSIX permissions.
+     * @param file The file the temporary file is to replace.
+     * @return The temporary file.
+     */
+    static File createTempFile(File file) throws IOException {
+        Path directory = file.getAbsoluteFile().getParentFile().toPath();
+        while (true) {
+            Path tempFile = directory.resolve(file.getName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + TEMP_FILE_SUFFIX);
+            try {
+                Files.createFile(tempFile);
+            } catch (FileAlreadyExistsException e) {
+                // Another save picked the same name
+                continue;
+            }
+            try {
+                Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(file.toPath()));
+            } catch (NoSuchFileException | UnsupportedOperationException e) {
+                // A new file, or no POSIX permissions to keep
+            }
+            return tempFile.toFile();
+        }
+    }
+
+    /**
+     * @desc Converts one contact into a CSV line, without the line terminator.
+     * @param contact The contact to convert.
+     * @return The CSV line.
+     */
+    static String toCsv(Contact contact) {
+        StringBuilder line = new StringBuilder(128);
+        String[] fields = {contact.firstName, contact.lastName, contact.address, contact.city,
+                contact.state, contact.zip, contact.phoneNumber, contact.email};
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = String.valueOf(fields[i]);
+            if (needsQuoting(value)) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+
+    /**
+     * @desc Checks whether a field must be quoted to survive a round trip through CSV.
+     */
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            value = "null";
+        }
+        if (!needsQuoting(value)) {
+            writeString(value);
+            return;
+        }
+        writeChar('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writeChar('"');
+            }
+            writeChar(c);
+        }
+        writeChar('"');
+    }
+
+    private void writeString(String value) throws IOException {
+        int offset = 0;
+        int length = value.length();
+        while (offset < length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int chunk = Math.min(length - offset, buffer.length - position);
+            value.getChars(offset, offset + chunk, buffer, position);
+            position += chunk;
+            offset += chunk;
+        }
+    }
+
+    private void writeChar(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+    }
+
+    private void drain() throws IOException {
+        writer.write(buffer, 0, position);
+        position = 0;
+    }
+}
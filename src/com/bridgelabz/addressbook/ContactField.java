@@ -0,0 +1,32 @@
+package com.bridgelabz.addressbook;
+
+import java.util.function.Function;
+
+/**
+ * @desc The fields of a Contact that queries can filter and sort on.
+ */
+public enum ContactField {
+    FIRST_NAME(contact -> contact.firstName),
+    LAST_NAME(contact -> contact.lastName),
+    ADDRESS(contact -> contact.address),
+    CITY(contact -> contact.city),
+    STATE(contact -> contact.state),
+    ZIP(contact -> contact.zip),
+    PHONE_NUMBER(contact -> contact.phoneNumber),
+    EMAIL(contact -> contact.email);
+
+    private final Function<Contact, String> accessor;
+
+    ContactField(Function<Contact, String> accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * @desc Reads this field of a contact.
+     * @param contact The contact to read.
+     * @return The value of the field, which may be null.
+     */
+    public String valueOf(Contact contact) {
+        return accessor.apply(contact);
+    }
+}
@@ -0,0 +1,179 @@
+package com.bridgelabz.addressbook;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * @desc A condition on the fields of a contact, built from field comparisons combined with AND and OR.
+ *       Filters are immutable. Comparisons are exact and case-sensitive, like the city and state searches.
+ */
+public abstract class ContactFilter {
+
+    ContactFilter() {
+    }
+
+    /**
+     * @desc Matches contacts whose field equals the value.
+     * @param field The field to compare.
+     * @param value The value the field must have.
+     * @return The filter.
+     */
+    public static ContactFilter equalTo(ContactField field, String value) {
+        return new FieldEquals(field, value);
+    }
+
+    /**
+     * @desc Matches contacts whose field starts with the prefix.
+     * @param field  The field to compare.
+     * @param prefix The text the field must start with.
+     * @return The filter.
+     */
+    public static ContactFilter startsWith(ContactField field, String prefix) {
+        return new FieldStartsWith(field, prefix);
+    }
+
+    /**
+     * @desc Matches contacts matching every one of the filters.
+     * @param filters The filters to combine.
+     * @return The filter.
+     */
+    public static ContactFilter allOf(ContactFilter... filters) {
+        return filters.length == 1 ? filters[0] : new And(Arrays.asList(filters));
+    }
+
+    /**
+     * @desc Matches contacts matching at least one of the filters.
+     * @param filters The filters to combine.
+     * @return The filter.
+     */
+    public static ContactFilter anyOf(ContactFilter... filters) {
+        return filters.length == 1 ? filters[0] : new Or(Arrays.asList(filters));
+    }
+
+    /**
+     * @desc Matches contacts matching both this filter and the other one.
+     * @param other The other filter.
+     * @return The filter.
+     */
+    public ContactFilter and(ContactFilter other) {
+        return allOf(this, other);
+    }
+
+    /**
+     * @desc Matches contacts matching this filter, the other one, or both.
+     * @param other The other filter.
+     * @return The filter.
+     */
+    public ContactFilter or(ContactFilter other) {
+        return anyOf(this, other);
+    }
+
+    /**
+     * @desc Checks a contact against the filter.
+     * @param contact The contact to check.
+     * @return True if the contact matches.
+     */
+    public abstract boolean matches(Contact contact);
+
+    /**
+     * @desc A field equal to a value.
+     */
+    static final class FieldEquals extends ContactFilter {
+        final ContactField field;
+        final String value;
+
+        FieldEquals(ContactField field, String value) {
+            this.field = Objects.requireNonNull(field);
+            this.value = Objects.requireNonNull(value);
+        }
+
+        @Override
+        public boolean matches(Contact contact) {
+            return value.equals(field.valueOf(contact));
+        }
+
+        @Override
+        public String toString() {
+            return field + " = \"" + value + "\"";
+        }
+    }
+
+    /**
+     * @desc A field starting with a prefix.
+     */
+    static final class FieldStartsWith extends ContactFilter {
+        final ContactField field;
+        final String prefix;
+
+        FieldStartsWith(ContactField field, String prefix) {
+            this.field = Objects.requireNonNull(field);
+            this.prefix = Objects.requireNonNull(prefix);
+        }
+
+        @Override
+        public boolean matches(Contact contact) {
+            String value = field.valueOf(contact);
+            return value != null && value.startsWith(prefix);
+        }
+
+        @Override
+        public String toString() {
+            return field + " STARTS WITH \"" + prefix + "\"";
+        }
+    }
+
+    /**
+     * @desc All of several filters.
+     */
+    static final class And extends ContactFilter {
+        final List<ContactFilter> filters;
+
+        And(List<ContactFilter> filters) {
+            this.filters = Collections.unmodifiableList(filters);
+        }
+
+        @Override
+        public boolean matches(Contact contact) {
+            for (ContactFilter filter : filters) {
+                if (!filter.matches(contact)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return filters.stream().map(ContactFilter::toString).collect(Collectors.joining(" AND ", "(", ")"));
+        }
+    }
+
+    /**
+     * @desc Any of several filters.
+     */
+    static final class Or extends ContactFilter {
+        final List<ContactFilter> filters;
+
+        Or(List<ContactFilter> filters) {
+            this.filters = Collections.unmodifiableList(filters);
+        }
+
+        @Override
+        public boolean matches(Contact contact) {
+            for (ContactFilter filter : filters) {
+                if (filter.matches(contact)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return filters.stream().map(ContactFilter::toString).collect(Collectors.joining(" OR ", "(", ")"));
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.bridgelabz.addressbook;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @desc Append-only write-ahead log for one address book. Every add, edit and delete is appended to a log
+ *       segment instead of rewriting the whole CSV file, and appends are synced to disk in batches.
+ *       Once the log has grown as large as the book itself, a new segment is started and the book is
+ *       compacted into a fresh CSV snapshot in the background, after which the older segments are deleted.
+ *
+ *       On disk a book is its CSV snapshot ({name}.txt) plus zero or more segments ({name}.log.{sequence}).
+ *       Loading reads the snapshot and replays every segment in sequence order. Replaying an add replaces any
+ *       contact of the same name and replaying a delete removes it, so the last record for a name wins over the
+ *       snapshot. This keeps replay correct when a segment still present after its snapshot was written is
+ *       replayed again, and when a compaction started between the delete and the add that record an edit.
+ */
+public class ContactJournal implements AddressBookListener, Closeable {
+    private static final String CONTACTS_DIRECTORY = "Contacts";
+    private static final String FILE_EXTENSION = ".txt";
+    private static final String LOG_EXTENSION = ".log.";
+    private static final byte ADDED = 'A';
+    private static final byte REMOVED = 'D';
+    // Appends are forced to disk after this many records, or on flush()
+    private static final int SYNC_BATCH = 64;
+    // The log is compacted once it holds more records than this, or than the book has contacts
+    private static final int MIN_COMPACTION_RECORDS = 10_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final AddressBookMetrics METRICS = AddressBookMetrics.getDefault();
+
+    // One background thread compacts the logs of all books
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "contact-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AddressBookList addressBook;
+    private final String addressBookName;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private FileChannel log;
+    private long sequence;
+    private int unsyncedRecords;
+    private long recordsSinceCompaction;
+    private Future<?> compaction;
+
+    private ContactJournal(AddressBookList addressBook, String addressBookName) {
+        this.addressBook = addressBook;
+        this.addressBookName = addressBookName;
+    }
+
+    /**
+     * @desc Loads an address book from its snapshot and log, then starts journaling every later change to it.
+     * @param addressBook     The address book to load into and journal.
+     * @param addressBookName The name of the address book.
+     * @return The journal attached to the address book.
+     * @throws IOException If the log cannot be read or opened.
+     */
+    public static ContactJournal open(AddressBookList addressBook, String addressBookName) throws IOException {
+        ContactJournal journal = new ContactJournal(addressBook, addressBookName);
+        addressBook.load(addressBookName);
+        long lastSequence = 0;
+        for (long segment : journal.segments()) {
+            File segmentFile = segmentFile(addressBookName, segment);
+            long records = journal.replay(segmentFile);
+            if (records == 0) {
+                // Left over from a session without changes
+                segmentFile.delete();
+            }
+            journal.recordsSinceCompaction += records;
+            lastSequence = segment;
+        }
+        journal.startSegment(lastSequence + 1);
+        addressBook.addListener(journal);
+        return journal;
+    }
+
+    @Override
+    public void contactAdded(Contact contact) {
+        append(ADDED, contact);
+    }
+
+    @Override
+    public void contactRemoved(Contact contact) {
+        append(REMOVED, contact);
+    }
+
+    /**
+     * @desc Writes out buffered records and forces them to disk.
+     * @throws IOException If the log cannot be written.
+     */
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        buffer.clear();
+        log.force(false);
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * @desc Flushes the log and waits for a running compaction to finish.
+     * @throws IOException If the log cannot be written or the compaction failed.
+     */
+    @Override
+    public void close() throws IOException {
+        Future<?> pending;
+        synchronized (this) {
+            flush();
+            log.close();
+            pending = compaction;
+        }
+        if (pending != null) {
+            awaitCompaction(pending);
+        }
+    }
+
+    /**
+     * @desc Appends one record: an operation byte, then the length and UTF-8 bytes of the contact as CSV.
+     */
+    private synchronized void append(byte operation, Contact contact) {
+        byte[] record = ContactCsvWriter.toCsv(contact).getBytes(StandardCharsets.UTF_8);
+        try {
+            if (buffer.remaining() < 1 + Integer.BYTES + record.length) {
+                drain();
+            }
+            if (buffer.remaining() < 1 + Integer.BYTES + record.length) {
+                // Record larger than the buffer
+                ByteBuffer large = ByteBuffer.allocate(1 + Integer.BYTES + record.length);
+                large.put(operation).putInt(record.length).put(record).flip();
+                while (large.hasRemaining()) {
+                    log.write(large);
+                }
+            } else {
+                buffer.put(operation).putInt(record.length).put(record);
+            }
+            METRICS.addBytesWritten(1 + Integer.BYTES + record.length);
+            if (++unsyncedRecords >= SYNC_BATCH) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append to the journal of " + addressBookName, e);
+        }
+        if (++recordsSinceCompaction > Math.max(MIN_COMPACTION_RECORDS, addressBook.size())
+                && (compaction == null || compaction.isDone())) {
+            compact();
+        }
+    }
+
+    /**
+     * @desc Starts a new log segment and writes a snapshot of the book in the background. Segments up to
+     *       the one just closed are deleted once the snapshot is safely on disk.
+     */
+    private void compact() {
+        try {
+            flush();
+            log.close();
+            long compactedSequence = sequence;
+            startSegment(sequence + 1);
+            recordsSinceCompaction = 0;
+
+            List<Contact> snapshot = addressBook.getContacts();
+            compaction = COMPACTOR.submit(() -> {
+                File snapshotFile = new File(CONTACTS_DIRECTORY + File.separator + addressBookName + FILE_EXTENSION);
+                ContactCsvWriter.writeAtomically(snapshotFile, snapshot);
+                METRICS.addBytesWritten(snapshotFile.length());
+                for (long segment : segments()) {
+                    if (segment <= compactedSequence) {
+                        segmentFile(addressBookName, segment).delete();
+                    }
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to compact the journal of " + addressBookName, e);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            log.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void startSegment(long newSequence) throws IOException {
+        sequence = newSequence;
+        log = FileChannel.open(segmentFile(addressBookName, sequence).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @desc Applies the records of one segment to the address book. A record cut short by a crash ends the replay,
+     *       as does one that is not a record at all, such as a zero-filled tail left by a crash: an unknown
+     *       operation, a length beyond the end of the segment or a contact that does not parse.
+     * @return The number of records replayed.
+     */
+    private long replay(File segment) throws IOException {
+        long records = 0;
+        long remaining = segment.length();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment), BUFFER_SIZE))) {
+            while (true) {
+                int operation = input.read();
+                if (operation < 0 || (operation != ADDED && operation != REMOVED)) {
+                    break;
+                }
+                int length = input.readInt();
+                if (length < 0 || length > remaining - 1 - Integer.BYTES) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                input.readFully(record);
+                remaining -= 1 + Integer.BYTES + length;
+                METRICS.addBytesRead(1 + Integer.BYTES + record.length);
+                Contact contact;
+                try {
+                    contact = Contact.fromCsvString(new String(record, StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+                if (operation == ADDED) {
+                    // An edit is a delete then an add, and a compaction may fall between the two: the snapshot
+                    // then already holds the old contact, which the add must replace
+                    addressBook.put(contact);
+                } else {
+                    addressBook.remove(contact.firstName, contact.lastName);
+                }
+                records++;
+            }
+        } catch (EOFException e) {
+            // A crash cut the last record short; the change it recorded is dropped
+        }
+        return records;
+    }
+
+    /**
+     * @desc Lists the sequence numbers of this book's log segments in ascending order.
+     */
+    private List<Long> segments() {
+        List<Long> sequences = new ArrayList<>();
+        String prefix = addressBookName + LOG_EXTENSION;
+        File[] files = new File(CONTACTS_DIRECTORY).listFiles((directory, name) -> name.startsWith(prefix));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    sequences.add(Long.parseLong(file.getName().substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // Not a log segment of this book
+                }
+            }
+        }
+        sequences.sort(null);
+        return sequences;
+    }
+
+    private static File segmentFile(String addressBookName, long sequence) {
+        return new File(CONTACTS_DIRECTORY + File.separator + addressBookName + LOG_EXTENSION + sequence);
+    }
+
+    private static void awaitCompaction(Future<?> pending) throws IOException {
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for journal compaction.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Journal compaction failed.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bridgelabz.addressbook;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * @desc One page of contacts in name order, with a cursor to fetch the next page. The cursor names the last
+ *       contact of the page, not a position, so pages stay in step while contacts are added or deleted:
+ *       the next page starts right after that name whether or not the contact is still there.
+ */
+public final class ContactPage {
+    // Separates the first and last name inside a cursor; it cannot be typed into a name
+    private static final char SEPARATOR = '\u0000';
+
+    private final List<Contact> contacts;
+    private final String nextCursor;
+
+    ContactPage(List<Contact> contacts, String nextCursor) {
+        this.contacts = contacts;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @desc Gets the contacts on this page.
+     * @return Immutable list of contacts in name order.
+     */
+    public List<Contact> getContacts() {
+        return contacts;
+    }
+
+    /**
+     * @desc Gets the cursor to pass for the next page.
+     * @return The cursor, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @desc Checks whether more contacts follow this page.
+     * @return True if there is a next page.
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * @desc Encodes the position just after a contact as an opaque, URL-safe cursor.
+     */
+    static String cursorAfter(Contact contact) {
+        String name = contact.firstName + SEPARATOR + contact.lastName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @desc Decodes a cursor into the first and last name it points after.
+     * @throws IllegalArgumentException If the cursor was not produced by cursorAfter.
+     */
+    static String[] decode(String cursor) {
+        String name = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = name.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        return new String[]{name.substring(0, separator), name.substring(separator + 1)};
+    }
+}
@@ -0,0 +1,151 @@
+package com.bridgelabz.addressbook;
+
+import java.util.Comparator;
+
+/**
+ * @desc A query over the contacts of an address book: an optional filter, an optional sort field, and an
+ *       offset and limit for paging through the results. Queries are immutable; every method returns a new one.
+ *
+ *       ContactQuery query = ContactQuery.where(ContactFilter.equalTo(ContactField.CITY, "Pune")
+ *               .and(ContactFilter.startsWith(ContactField.LAST_NAME, "S")))
+ *               .sortBy(ContactField.FIRST_NAME)
+ *               .limit(20);
+ */
+public final class ContactQuery {
+    private static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private final ContactFilter filter;
+    private final ContactField sortField;
+    private final boolean ascending;
+    private final int offset;
+    private final int limit;
+
+    private ContactQuery(ContactFilter filter, ContactField sortField, boolean ascending, int offset, int limit) {
+        this.filter = filter;
+        this.sortField = sortField;
+        this.ascending = ascending;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * @desc Creates a query matching every contact.
+     * @return The query.
+     */
+    public static ContactQuery all() {
+        return new ContactQuery(null, null, true, 0, NO_LIMIT);
+    }
+
+    /**
+     * @desc Creates a query matching the contacts that pass a filter.
+     * @param filter The filter.
+     * @return The query.
+     */
+    public static ContactQuery where(ContactFilter filter) {
+        return new ContactQuery(filter, null, true, 0, NO_LIMIT);
+    }
+
+    /**
+     * @desc Sorts the results by a field in ascending order, then by name.
+     * @param field The field to sort on.
+     * @return The new query.
+     */
+    public ContactQuery sortBy(ContactField field) {
+        return sortBy(field, true);
+    }
+
+    /**
+     * @desc Sorts the results by a field, then by name.
+     * @param field     The field to sort on.
+     * @param ascending True for ascending order, false for descending order.
+     * @return The new query.
+     */
+    public ContactQuery sortBy(ContactField field, boolean ascending) {
+        return new ContactQuery(filter, field, ascending, offset, limit);
+    }
+
+    /**
+     * @desc Skips the first results.
+     * @param offset The number of results to skip.
+     * @return The new query.
+     */
+    public ContactQuery offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        return new ContactQuery(filter, sortField, ascending, offset, limit);
+    }
+
+    /**
+     * @desc Returns at most the given number of results.
+     * @param limit The maximum number of results.
+     * @return The new query.
+     */
+    public ContactQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative: " + limit);
+        }
+        return new ContactQuery(filter, sortField, ascending, offset, limit);
+    }
+
+    ContactFilter getFilter() {
+        return filter;
+    }
+
+    ContactField getSortField() {
+        return sortField;
+    }
+
+    boolean isAscending() {
+        return ascending;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    boolean hasLimit() {
+        return limit != NO_LIMIT;
+    }
+
+    /**
+     * @desc Gets the query each Address Book runs when the results of several books are merged:
+     *       same filter and sort, but without skipping, and returning enough results to fill the page.
+     */
+    ContactQuery withoutOffset() {
+        return new ContactQuery(filter, sortField, ascending, 0,
+                hasLimit() ? (int) Math.min(NO_LIMIT - 1L, (long) offset + limit) : NO_LIMIT);
+    }
+
+    /**
+     * @desc Gets the order of the results: by the sort field, with missing values first, then by name.
+     */
+    Comparator<Contact> comparator() {
+        Comparator<Contact> bySortField = Comparator.comparing(sortField::valueOf,
+                Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+        Comparator<Contact> order = bySortField.thenComparing(Comparator.naturalOrder());
+        return ascending ? order : order.reversed();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("SELECT *");
+        if (filter != null) {
+            result.append(" WHERE ").append(filter);
+        }
+        if (sortField != null) {
+            result.append(" ORDER BY ").append(sortField).append(ascending ? " ASC" : " DESC");
+        }
+        if (hasLimit()) {
+            result.append(" LIMIT ").append(limit);
+        }
+        if (offset > 0) {
+            result.append(" OFFSET ").append(offset);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.bridgelabz.addressbook;
+
+import java.util.Collection;
+
+/**
+ * @desc Where an AddressBookList keeps its contacts, keyed on first and last name and iterated in the order they
+ *       were stored. HeapContactStore keeps Contact objects in a LinkedHashMap; OffHeapContactStore keeps encoded
+ *       records in direct buffers. The book guards the store with its own lock, and its secondary indexes answer
+ *       searches, counts and sorts, so the store only needs lookups by name and a full scan.
+ *
+ *       A store may hand back copies of the contacts it was given rather than the same objects.
+ */
+interface ContactStore {
+
+    /**
+     * @desc Looks a contact up by name.
+     * @return The contact, or null if no contact has that name.
+     */
+    Contact get(String firstName, String lastName);
+
+    /**
+     * @desc Checks whether a contact with the given name is stored.
+     */
+    boolean contains(String firstName, String lastName);
+
+    /**
+     * @desc Stores a contact unless one with the same name is already stored.
+     * @return True if the contact was stored, false if it is a duplicate.
+     */
+    boolean add(Contact contact);
+
+    /**
+     * @desc Stores a contact, replacing any contact with the same name. Whether the new contact takes the old
+     *       one's place in the iteration order or moves to the end depends on the store.
+     * @return The contact replaced, or null if none had that name.
+     */
+    Contact put(Contact contact);
+
+    /**
+     * @desc Removes the contact with the given name.
+     * @return The removed contact, or null if no contact has that name.
+     */
+    Contact remove(String firstName, String lastName);
+
+    /**
+     * @desc Gets the number of contacts stored.
+     */
+    int size();
+
+    /**
+     * @desc Gets the stored contacts in iteration order. The collection must not be used after the store changes.
+     */
+    Collection<Contact> values();
+
+    /**
+     * @desc Creates an empty store of the same kind, e.g. to refill in another order.
+     * @param expectedSize About how many contacts will be stored.
+     */
+    ContactStore newStore(int expectedSize);
+}
@@ -0,0 +1,85 @@
+package com.bridgelabz.addressbook;
+
+/**
+ * @desc New details for an existing contact. The name identifies the contact and is not changed; every
+ *       other field is replaced by the value given here.
+ */
+public final class ContactUpdate {
+    private final String address;
+    private final String city;
+    private final String state;
+    private final String zip;
+    private final String phoneNumber;
+    private final String email;
+
+    /**
+     * @param address     The new address.
+     * @param city        The new city.
+     * @param state       The new state.
+     * @param zip         The new ZIP code.
+     * @param phoneNumber The new phone number.
+     * @param email       The new email.
+     */
+    public ContactUpdate(String address, String city, String state, String zip, String phoneNumber, String email) {
+        this.address = address;
+        this.city = city;
+        this.state = state;
+        this.zip = zip;
+        this.phoneNumber = phoneNumber;
+        this.email = email;
+    }
+
+    /**
+     * @desc Gets the new address of the contact.
+     *
+     * @return The new address.
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * @desc Gets the new city of the contact.
+     *
+     * @return The new city.
+     */
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * @desc Gets the new state of the contact.
+     *
+     * @return The new state.
+     */
+    public String getState() {
+        return state;
+    }
+
+    /**
+     * @desc Gets the new ZIP code of the contact.
+     *
+     * @return The new ZIP code.
+     */
+    public String getZip() {
+        return zip;
+    }
+
+    /**
+     * @desc Gets the new phone number of the contact.
+     *
+     * @return The new phone number.
+     */
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    /**
+     * @desc Gets the new email of the contact.
+     *
+     * @return The new email.
+     */
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bridgelabz.addressbook;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @desc The default ContactStore: the contacts themselves in a LinkedHashMap keyed on Contact.equals/hashCode
+ *       (firstName + lastName), so lookups hand back the very objects stored.
+ */
+final class HeapContactStore implements ContactStore {
+    private final Map<Contact, Contact> contacts;
+
+    HeapContactStore() {
+        contacts = new LinkedHashMap<>();
+    }
+
+    /**
+     * @param expectedSize About how many contacts will be stored, so the map does not rehash while filling.
+     */
+    HeapContactStore(int expectedSize) {
+        contacts = new LinkedHashMap<>((int) Math.min(Integer.MAX_VALUE / 2, expectedSize * 4L / 3 + 1));
+    }
+
+    @Override
+    public Contact get(String firstName, String lastName) {
+        return contacts.get(nameKey(firstName, lastName));
+    }
+
+    @Override
+    public boolean contains(String firstName, String lastName) {
+        return contacts.containsKey(nameKey(firstName, lastName));
+    }
+
+    @Override
+    public boolean add(Contact contact) {
+        return contacts.putIfAbsent(contact, contact) == null;
+    }
+
+    @Override
+    public Contact put(Contact contact) {
+        return contacts.put(contact, contact);
+    }
+
+    @Override
+    public Contact remove(String firstName, String lastName) {
+        return contacts.remove(nameKey(firstName, lastName));
+    }
+
+    @Override
+    public int size() {
+        return contacts.size();
+    }
+
+    @Override
+    public Collection<Contact> values() {
+        return contacts.values();
+    }
+
+    @Override
+    public ContactStore newStore(int expectedSize) {
+        return new HeapContactStore(expectedSize);
+    }
+
+    private static Contact nameKey(String firstName, String lastName) {
+        return new Contact(firstName, lastName, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,47 @@
+package com.bridgelabz.addressbook;
+
+/**
+ * @desc What a bulk import did: how many contacts were added, how many were skipped because a contact with the
+ *       same name was already in the address book or earlier in the import, and how many rows were rejected
+ *       as malformed.
+ */
+public final class ImportSummary {
+    private final long added;
+    private final long duplicates;
+    private final long rejected;
+
+    ImportSummary(long added, long duplicates, long rejected) {
+        this.added = added;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+    }
+
+    /**
+     * @desc Gets the number of contacts added.
+     * @return The number of contacts added.
+     */
+    public long getAdded() {
+        return added;
+    }
+
+    /**
+     * @desc Gets the number of contacts skipped as duplicates.
+     * @return The number of duplicates.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @desc Gets the number of rows rejected as malformed, or of null contacts.
+     * @return The number of rejected rows.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return added + " added, " + duplicates + " duplicates, " + rejected + " rejected";
+    }
+}
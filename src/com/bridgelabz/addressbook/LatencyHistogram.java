@@ -0,0 +1,86 @@
+package com.bridgelabz.addressbook;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @desc Lock-free latency histogram with one bucket per power of two nanoseconds. Recording is a few adds on
+ *       striped counters, so threads recording at once do not contend; percentiles are read to within a
+ *       factor of two, which is enough to see where time goes and to spot regressions.
+ */
+final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    // Bucket i counts latencies in [2^i, 2^(i+1)) nanoseconds
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @desc Records one operation.
+     * @param nanos How long it took.
+     */
+    void record(long nanos) {
+        long value = Math.max(1, nanos);
+        buckets[63 - Long.numberOfLeadingZeros(value)].increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    long maxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @desc Estimates a percentile as the upper bound of the bucket it falls in, capped at the maximum recorded.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    long percentileNanos(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                // The slowest operation bounds every percentile more tightly than the top bucket does
+                return i == BUCKETS - 1 ? maxNanos() : Math.min((1L << (i + 1)) - 1, maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
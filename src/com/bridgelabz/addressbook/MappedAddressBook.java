@@ -0,0 +1,330 @@
+package com.bridgelabz.addressbook;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * @desc A read-only address book stored in a compact binary file and read through a memory-mapped buffer.
+ *       Opening a book only maps the file; contacts are decoded one at a time when a lookup returns them,
+ *       so large books can be searched without deserializing every contact into the heap.
+ *
+ *       File layout (big-endian):
+ *       header   - magic, version, contact count, index slot count, offsets position, index position
+ *       records  - per contact, eight fields each stored as an int byte length followed by UTF-8 bytes,
+ *                  or as a length of -1 for null
+ *       offsets  - one long per contact pointing at the start of its record
+ *       index    - open-addressing hash table on first and last name, one int per slot holding
+ *                  the record number plus one (zero marks an empty slot)
+ */
+public class MappedAddressBook implements Closeable {
+    private static final int MAGIC = 0x41424B31; // "ABK1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int FIELD_COUNT = 8;
+    private static final int CITY_FIELD = 3;
+    private static final int STATE_FIELD = 4;
+    // Byte length written for a null field
+    private static final int NULL_LENGTH = -1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+    private final int indexSlots;
+    private final int offsetsPosition;
+    private final int indexPosition;
+
+    private MappedAddressBook(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a binary address book file.");
+        }
+        size = buffer.getInt(8);
+        indexSlots = buffer.getInt(12);
+        long offsets = buffer.getLong(16);
+        long index = buffer.getLong(24);
+        // Every section must end where the next starts, and the index where the file does
+        if (size < 0 || indexSlots <= size || offsets < HEADER_SIZE || index != offsets + (long) size * Long.BYTES
+                || index + (long) indexSlots * Integer.BYTES != buffer.capacity()) {
+            throw new IOException("Incomplete binary address book file.");
+        }
+        offsetsPosition = (int) offsets;
+        indexPosition = (int) index;
+    }
+
+    /**
+     * @desc Maps a binary address book file for reading.
+     * @param file The binary file.
+     * @return The mapped address book.
+     * @throws IOException If the file cannot be read or is not a binary address book.
+     */
+    public static MappedAddressBook open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary address books larger than 2 GB are not supported.");
+            }
+            return new MappedAddressBook(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @desc Writes contacts to a binary address book file. Contact names must be unique, as they are in an AddressBookList.
+     *       The file is written in full to a temporary file, header included, which is then renamed over it, so
+     *       a failed write never leaves a partly written file newer than the CSV file of the book.
+     * @param file     The binary file to write.
+     * @param contacts The contacts to store.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, Collection<Contact> contacts) throws IOException {
+        File tempFile = ContactCsvWriter.createTempFile(file.toFile());
+        try {
+            writeContents(tempFile.toPath(), contacts);
+            ContactCsvWriter.replace(tempFile, file.toFile());
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private static void writeContents(Path file, Collection<Contact> contacts) throws IOException {
+        int count = contacts.size();
+        long[] offsets = new long[count];
+        int[] index = new int[tableSize(count)];
+        long offsetsPosition;
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(count);
+            output.writeInt(index.length);
+            // Offsets and index positions are only known once the records are written
+            output.writeLong(0);
+            output.writeLong(0);
+
+            long position = HEADER_SIZE;
+            int record = 0;
+            for (Contact contact : contacts) {
+                offsets[record] = position;
+                String[] fields = fieldsOf(contact);
+                for (String field : fields) {
+                    if (field == null) {
+                        output.writeInt(NULL_LENGTH);
+                        position += Integer.BYTES;
+                        continue;
+                    }
+                    byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                    position += Integer.BYTES + bytes.length;
+                }
+                int slot = slotFor(contact.firstName, contact.lastName, index.length);
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & (index.length - 1);
+                }
+                index[slot] = record + 1;
+                record++;
+            }
+
+            for (long offset : offsets) {
+                output.writeLong(offset);
+            }
+            for (int slot : index) {
+                output.writeInt(slot);
+            }
+            if (position + (long) count * Long.BYTES + (long) index.length * Integer.BYTES > Integer.MAX_VALUE) {
+                throw new IOException("Binary address books larger than 2 GB are not supported.");
+            }
+            offsetsPosition = position;
+        }
+        writePositions(file, offsetsPosition, offsetsPosition + (long) count * Long.BYTES);
+    }
+
+    /**
+     * @desc Gets the number of contacts in the book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @desc Decodes the contact stored at a record number.
+     * @param record The record number, from 0 to size() - 1.
+     * @return The decoded contact.
+     */
+    public Contact get(int record) {
+        Objects.checkIndex(record, size);
+        String[] fields = new String[FIELD_COUNT];
+        int position = recordPosition(record);
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            int length = buffer.getInt(position);
+            fields[i] = length == NULL_LENGTH ? null : decode(position + Integer.BYTES, length);
+            position += fieldSize(position);
+        }
+        return new Contact(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6], fields[7]);
+    }
+
+    /**
+     * @desc Looks a contact up by name through the name index, decoding only the matching record.
+     * @param firstName The first name of the contact, may be null.
+     * @param lastName  The last name of the contact, may be null.
+     * @return The contact, or null if the book holds no contact with that name.
+     */
+    public Contact find(String firstName, String lastName) {
+        byte[] first = utf8(firstName);
+        byte[] last = utf8(lastName);
+        int slot = slotFor(firstName, lastName, indexSlots);
+        while (true) {
+            int entry = buffer.getInt(indexPosition + slot * Integer.BYTES);
+            if (entry == 0) {
+                return null;
+            }
+            int position = recordPosition(entry - 1);
+            if (fieldEquals(position, first)) {
+                int lastPosition = position + fieldSize(position);
+                if (fieldEquals(lastPosition, last)) {
+                    return get(entry - 1);
+                }
+            }
+            slot = (slot + 1) & (indexSlots - 1);
+        }
+    }
+
+    /**
+     * @desc Search for persons in a city. Only the city field of each record is compared; matching records are decoded.
+     * @param cityName The city to search for, may be null.
+     * @return List of persons in the specified city.
+     */
+    public List<Contact> searchPersonInCity(String cityName) {
+        return searchField(CITY_FIELD, cityName);
+    }
+
+    /**
+     * @desc Search for persons in a state. Only the state field of each record is compared; matching records are decoded.
+     * @param stateName The state to search for, may be null.
+     * @return List of persons in the specified state.
+     */
+    public List<Contact> searchPersonInState(String stateName) {
+        return searchField(STATE_FIELD, stateName);
+    }
+
+    /**
+     * @desc Decodes every contact in file order and passes it to an action.
+     * @param action The action to run for each contact.
+     */
+    public void forEach(Consumer<Contact> action) {
+        for (int record = 0; record < size; record++) {
+            action.accept(get(record));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<Contact> searchField(int field, String value) {
+        byte[] expected = utf8(value);
+        List<Contact> matches = new ArrayList<>();
+        for (int record = 0; record < size; record++) {
+            int position = recordPosition(record);
+            for (int i = 0; i < field; i++) {
+                position += fieldSize(position);
+            }
+            if (fieldEquals(position, expected)) {
+                matches.add(get(record));
+            }
+        }
+        return matches;
+    }
+
+    private int recordPosition(int record) {
+        return (int) buffer.getLong(offsetsPosition + record * Long.BYTES);
+    }
+
+    /**
+     * @desc Gets the number of bytes the field stored at a position takes, its length included.
+     */
+    private int fieldSize(int position) {
+        return Integer.BYTES + Math.max(0, buffer.getInt(position));
+    }
+
+    /**
+     * @desc Compares the field stored at a position with UTF-8 bytes, or with null, without decoding it.
+     */
+    private boolean fieldEquals(int position, byte[] expected) {
+        if (expected == null) {
+            return buffer.getInt(position) == NULL_LENGTH;
+        }
+        if (buffer.getInt(position) != expected.length) {
+            return false;
+        }
+        int start = position + Integer.BYTES;
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String[] fieldsOf(Contact contact) {
+        return new String[]{contact.firstName, contact.lastName, contact.address, contact.city,
+                contact.state, contact.zip, contact.phoneNumber, contact.email};
+    }
+
+    /**
+     * @desc Sizes the name index to a power of two at most half full.
+     */
+    private static int tableSize(int count) {
+        return Integer.highestOneBit(Math.max(count, 1) * 2 - 1) << 1;
+    }
+
+    /**
+     * @desc Picks the first index slot for a name, spreading the Contact hash code over the table.
+     */
+    private static int slotFor(String firstName, String lastName, int slots) {
+        // Similar names have close hash codes, so scramble them before linear probing
+        int hash = Objects.hash(firstName, lastName) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (slots - 1);
+    }
+
+    /**
+     * @desc Fills in the offsets and index positions left empty in the header.
+     */
+    private static void writePositions(Path file, long offsetsPosition, long indexPosition) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer positions = ByteBuffer.allocate(2 * Long.BYTES);
+            positions.putLong(offsetsPosition).putLong(indexPosition).flip();
+            channel.write(positions, 16);
+            channel.force(true);
+        }
+    }
+}
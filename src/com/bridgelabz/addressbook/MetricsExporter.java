@@ -0,0 +1,18 @@
+package com.bridgelabz.addressbook;
+
+import java.util.Map;
+
+/**
+ * @desc Receives the metrics of the address book system at a fixed interval, to forward them to a monitoring
+ *       system, a log file or the console. Register one with AddressBookMetrics.startExporting.
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    /**
+     * @desc Called with the current value of every metric, keyed by name, e.g. "add.count", "add.p99Nanos",
+     *       "bytes.read" or "book.Friends.contacts". Counters and histograms only ever grow until reset.
+     * @param metrics The metrics, sorted by name.
+     */
+    void export(Map<String, Long> metrics);
+}
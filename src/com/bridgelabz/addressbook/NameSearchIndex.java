@@ -0,0 +1,461 @@
+package com.bridgelabz.addressbook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * @desc Radix tree over the lower-cased first name, last name, phone number and email of contacts, used for
+ *       case-insensitive prefix search and typo-tolerant search. Chains of nodes with a single child are
+ *       merged into one edge labelled with several characters, so a unique phone number or email costs
+ *       one node rather than one per character. Prefix search walks straight to the
+ *       prefix node and stops after the first k matches. Fuzzy search walks the trie once, carrying one
+ *       row of the edit-distance table per node, and skips every branch that can no longer come within
+ *       the allowed distance, so it only visits a small part of the trie.
+ *       Not thread-safe; AddressBookList guards it with its own lock.
+ */
+class NameSearchIndex {
+
+    /**
+     * @desc A contact found by a search, with the term it matched and the edit distance to that term.
+     *       Matches order by distance, then term, then contact name.
+     */
+    static final class Match implements Comparable<Match> {
+        final Contact contact;
+        final String term;
+        final int distance;
+
+        Match(Contact contact, String term, int distance) {
+            this.contact = contact;
+            this.term = term;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (distance != other.distance) {
+                return Integer.compare(distance, other.distance);
+            }
+            int byTerm = term.compareTo(other.term);
+            return byTerm != 0 ? byTerm : contact.compareTo(other.contact);
+        }
+    }
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    /**
+     * @desc A tree node. Children are kept in arrays sorted by the first character of their label,
+     *       which is far smaller than a map per node.
+     */
+    private static final class Node {
+        // Characters on the edge from the parent; empty for the root
+        char[] label;
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        // Contacts having the term that ends at this node: null, a single Contact, or a Set of them when
+        // several contacts share the term. Most terms belong to one contact, so most nodes hold no set.
+        Object contacts;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        Node child(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            return position >= 0 ? children[position] : null;
+        }
+
+        /**
+         * @desc Adds a child, or replaces the child whose label starts with the same character.
+         */
+        void putChild(Node child) {
+            char key = child.label[0];
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                children[position] = child;
+                return;
+            }
+            int insertAt = -position - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = key;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        void removeChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+            System.arraycopy(children, position + 1, newChildren, position, children.length - position - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        /**
+         * @desc Absorbs the only child, appending its label, once this node holds no contacts of its own.
+         */
+        void mergeWithOnlyChild() {
+            Node only = children[0];
+            char[] merged = Arrays.copyOf(label, label.length + only.label.length);
+            System.arraycopy(only.label, 0, merged, label.length, only.label.length);
+            label = merged;
+            keys = only.keys;
+            children = only.children;
+            contacts = only.contacts;
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && contacts == null;
+        }
+
+        void addContact(Contact contact) {
+            if (contacts == null) {
+                contacts = contact;
+            } else if (contacts instanceof Contact) {
+                if (!contacts.equals(contact)) {
+                    Set<Contact> shared = new LinkedHashSet<>(4);
+                    shared.add((Contact) contacts);
+                    shared.add(contact);
+                    contacts = shared;
+                }
+            } else {
+                contactSet().add(contact);
+            }
+        }
+
+        void removeContact(Contact contact) {
+            if (contacts instanceof Contact) {
+                if (contacts.equals(contact)) {
+                    contacts = null;
+                }
+            } else if (contacts != null) {
+                Set<Contact> shared = contactSet();
+                shared.remove(contact);
+                if (shared.size() == 1) {
+                    contacts = shared.iterator().next();
+                }
+            }
+        }
+
+        Collection<Contact> contactList() {
+            if (contacts == null) {
+                return Collections.emptyList();
+            }
+            return contacts instanceof Contact ? Collections.singletonList((Contact) contacts) : contactSet();
+        }
+
+        @SuppressWarnings("unchecked")
+        private Set<Contact> contactSet() {
+            return (Set<Contact>) contacts;
+        }
+    }
+
+    private final Node root = new Node(NO_KEYS);
+
+    /**
+     * @desc Indexes the searchable terms of a contact.
+     * @param contact The contact to index.
+     */
+    void add(Contact contact) {
+        add(contact.firstName, contact);
+        add(contact.lastName, contact);
+        add(contact.phoneNumber, contact);
+        add(contact.email, contact);
+    }
+
+    /**
+     * @desc Removes the terms of a contact, pruning nodes left without contacts or children.
+     * @param contact The contact to remove, holding the field values it was indexed with.
+     */
+    void remove(Contact contact) {
+        remove(contact.firstName, contact);
+        remove(contact.lastName, contact);
+        remove(contact.phoneNumber, contact);
+        remove(contact.email, contact);
+    }
+
+    private void add(String field, Contact contact) {
+        if (field == null || field.isEmpty()) {
+            return;
+        }
+        String term = normalize(field);
+        Node node = root;
+        int depth = 0;
+        while (depth < term.length()) {
+            Node child = node.child(term.charAt(depth));
+            if (child == null) {
+                Node leaf = new Node(term.substring(depth).toCharArray());
+                leaf.addContact(contact);
+                node.putChild(leaf);
+                return;
+            }
+            int common = commonLength(child.label, term, depth);
+            if (common < child.label.length) {
+                // The term leaves the edge part way: split it, the old child keeping the rest of its label
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.putChild(child);
+                node.putChild(middle);
+                child = middle;
+            }
+            node = child;
+            depth += common;
+        }
+        node.addContact(contact);
+    }
+
+    private void remove(String field, Contact contact) {
+        if (field != null && !field.isEmpty()) {
+            remove(root, normalize(field), 0, contact);
+        }
+    }
+
+    /**
+     * @desc Removes a contact from the node of a term below the given node, then prunes the child it went
+     *       through if it is left empty, or merges it with its only child if it is left as a plain link.
+     */
+    private static void remove(Node node, String term, int depth, Contact contact) {
+        if (depth == term.length()) {
+            node.removeContact(contact);
+            return;
+        }
+        Node child = node.child(term.charAt(depth));
+        if (child == null || commonLength(child.label, term, depth) < child.label.length) {
+            return;
+        }
+        remove(child, term, depth + child.label.length, contact);
+        if (child.isEmpty()) {
+            node.removeChild(child.label[0]);
+        } else if (child.contacts == null && child.children.length == 1) {
+            child.mergeWithOnlyChild();
+        }
+    }
+
+    /**
+     * @desc Counts the characters a label shares with the term from the given position.
+     */
+    private static int commonLength(char[] label, String term, int from) {
+        int common = 0;
+        while (common < label.length && from + common < term.length() && label[common] == term.charAt(from + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    /**
+     * @desc Finds contacts with a term starting with the prefix, ignoring case, in term order.
+     * @param prefix The prefix to search for.
+     * @param limit  The maximum number of contacts to return.
+     * @return The first matches in term order, one per contact.
+     */
+    List<Match> searchPrefix(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        Node node = root;
+        StringBuilder term = new StringBuilder();
+        int depth = 0;
+        while (depth < normalized.length()) {
+            Node child = node.child(normalized.charAt(depth));
+            if (child == null) {
+                return new ArrayList<>();
+            }
+            int common = commonLength(child.label, normalized, depth);
+            if (depth + common < normalized.length() && common < child.label.length) {
+                // The prefix leaves the edge part way
+                return new ArrayList<>();
+            }
+            // Either the whole label matched, or the prefix ends inside it and every term below matches
+            term.append(child.label);
+            depth += common;
+            node = child;
+        }
+        Map<Contact, Match> matches = new HashMap<>();
+        List<Match> ordered = new ArrayList<>();
+        collectPrefix(node, term, limit, matches, ordered);
+        return ordered;
+    }
+
+    /**
+     * @desc Finds contacts with a term within an edit distance of the query, ignoring case. Inserting, deleting
+     *       or substituting a character, or swapping two adjacent characters, each count as one edit.
+     * @param query       The text to search for.
+     * @param maxDistance The largest number of edits allowed.
+     * @param limit       The maximum number of contacts to return.
+     * @return The closest matches, by distance and then term, one per contact.
+     */
+    List<Match> searchFuzzy(String query, int maxDistance, int limit) {
+        FuzzySearch search = new FuzzySearch(normalize(query), maxDistance, limit);
+        search.visit(root, 0);
+        List<Match> ordered = new ArrayList<>(search.best);
+        ordered.sort(null);
+        return ordered;
+    }
+
+    private static boolean collectPrefix(Node node, StringBuilder term, int limit, Map<Contact, Match> matches, List<Match> ordered) {
+        if (node.contacts != null) {
+            for (Contact contact : node.contactList()) {
+                if (!matches.containsKey(contact)) {
+                    Match match = new Match(contact, term.toString(), 0);
+                    matches.put(contact, match);
+                    ordered.add(match);
+                    if (ordered.size() >= limit) {
+                        return true;
+                    }
+                }
+            }
+        }
+        for (Node child : node.children) {
+            term.append(child.label);
+            boolean full = collectPrefix(child, term, limit, matches, ordered);
+            term.setLength(term.length() - child.label.length);
+            if (full) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @desc State of one fuzzy search. Row d of the edit-distance table holds the distances between every
+     *       prefix of the query and the first d characters of the term being walked, one row per character
+     *       of an edge label; rows are reused across branches, so walking a node allocates nothing, and only
+     *       the band of cells within bound of the diagonal is filled in.
+     */
+    private static final class FuzzySearch {
+        private final char[] query;
+        private final int limit;
+        private final int[][] rows;
+        private final char[] path;
+        // Worst of the best matches at the head, so it can be replaced by a closer one
+        private final PriorityQueue<Match> best;
+        private static final int OUT_OF_BAND = Integer.MAX_VALUE / 2;
+        private final Map<Contact, Match> bestByContact = new HashMap<>();
+        // Branches further than this from the query are skipped; tightened once limit matches are found
+        private int bound;
+
+        FuzzySearch(String query, int maxDistance, int limit) {
+            this.query = query.toCharArray();
+            this.limit = limit;
+            this.bound = maxDistance;
+            // A term longer than the query by more than maxDistance can never match
+            int maxDepth = this.query.length + maxDistance + 1;
+            rows = new int[maxDepth + 1][this.query.length + 1];
+            path = new char[maxDepth];
+            for (int i = 0; i <= this.query.length; i++) {
+                rows[0][i] = i;
+            }
+            best = new PriorityQueue<>(limit + 1, (a, b) -> b.compareTo(a));
+        }
+
+        void visit(Node node, int depth) {
+            // Cells more than bound away from the diagonal are never computed; their distance is above bound anyway
+            if (node.contacts != null && Math.abs(query.length - depth) <= bound && rows[depth][query.length] <= bound) {
+                int distance = rows[depth][query.length];
+                String term = new String(path, 0, depth);
+                for (Contact contact : node.contactList()) {
+                    offer(new Match(contact, term, distance));
+                }
+            }
+            for (Node child : node.children) {
+                int childDepth = depth;
+                boolean reachable = true;
+                for (char key : child.label) {
+                    if (childDepth + 1 >= rows.length || !step(childDepth, key)) {
+                        reachable = false;
+                        break;
+                    }
+                    path[childDepth++] = key;
+                }
+                if (reachable) {
+                    visit(child, childDepth);
+                }
+            }
+        }
+
+        /**
+         * @desc Fills in the row for the term on the path so far followed by key.
+         * @return False if every term continuing this way is further than bound from the query.
+         */
+        private boolean step(int depth, char key) {
+            int[] row = rows[depth];
+            int[] next = rows[depth + 1];
+            int low = Math.max(1, depth + 1 - bound);
+            int high = Math.min(query.length, depth + 1 + bound);
+            next[0] = depth + 1;
+            next[low - 1] = low == 1 ? depth + 1 : OUT_OF_BAND;
+            if (high < query.length) {
+                next[high + 1] = OUT_OF_BAND;
+            }
+            int smallest = next[0];
+            for (int j = low; j <= high; j++) {
+                int cost = query[j - 1] == key ? 0 : 1;
+                int edit = Math.min(row[j - 1] + cost, Math.min(row[j] + 1, next[j - 1] + 1));
+                if (depth > 0 && j > 1 && query[j - 1] == path[depth - 1] && query[j - 2] == key) {
+                    edit = Math.min(edit, rows[depth - 1][j - 2] + 1);
+                }
+                next[j] = edit;
+                smallest = Math.min(smallest, edit);
+            }
+            // Every term below this branch is at least this far from the query, unless swapping
+            // this character with the next one brings it back within bound
+            return smallest <= bound || swapWithinBound(row, key, low, high);
+        }
+
+        /**
+         * @desc Checks whether a term continuing with key and then the query character before it could be within bound.
+         */
+        private boolean swapWithinBound(int[] row, char key, int low, int high) {
+            for (int j = Math.max(2, low); j <= high; j++) {
+                if (query[j - 1] == key && row[j - 2] < bound) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @desc Keeps a match if it is among the best seen so far, keeping only the best match per contact.
+         */
+        private void offer(Match match) {
+            Match previous = bestByContact.get(match.contact);
+            if (previous != null) {
+                if (match.compareTo(previous) >= 0) {
+                    return;
+                }
+                best.remove(previous);
+            }
+            best.add(match);
+            bestByContact.put(match.contact, match);
+            if (best.size() > limit) {
+                bestByContact.remove(best.poll().contact);
+            }
+            if (best.size() == limit) {
+                bound = Math.min(bound, best.peek().distance);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
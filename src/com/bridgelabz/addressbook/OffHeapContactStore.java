@@ -0,0 +1,598 @@
+package com.bridgelabz.addressbook;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * @desc Contact store for very large address books that keeps contact records off the Java heap, in direct
+ *       ByteBuffer slabs, so tens of millions of contacts do not add tens of millions of objects for the
+ *       garbage collector to trace. Only the name index lives on the heap, as a single long array.
+ *       It offers the same add, edit, delete, search, count and sort operations as AddressBookList;
+ *       Contact objects are decoded only for the contacts handed back to the caller. It is also a ContactStore,
+ *       which an AddressBookList uses for its contacts when run with -Daddressbook.offHeap=true; the book then
+ *       answers searches, counts and sorts from its own indexes instead of scanning the records.
+ *
+ *       Record layout: an int holding the record length (negated once the record is deleted), then the
+ *       eight contact fields, each an int byte length followed by UTF-8 bytes, or a length of -1 for null. Records are appended in
+ *       insertion order; an edit deletes the old record and appends a new one. Space held by deleted
+ *       records is reclaimed by copying the live records into fresh slabs once it exceeds the live space.
+ */
+public class OffHeapContactStore implements ContactStore {
+    private static final int DEFAULT_SLAB_SIZE = 16 * 1024 * 1024;
+    private static final int FIELD_COUNT = 8;
+    private static final int CITY_FIELD = 3;
+    private static final int STATE_FIELD = 4;
+    private static final int ZIP_FIELD = 5;
+    private static final long EMPTY = 0;
+    private static final long DELETED = -1;
+    // Byte length written for a null field
+    private static final int NULL_LENGTH = -1;
+
+    private final int slabSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private List<ByteBuffer> slabs = new ArrayList<>();
+    // Write position in the last slab
+    private int slabPosition;
+    // Open-addressing name index; each slot holds a record address plus one, EMPTY or DELETED
+    private long[] index = new long[1024];
+    private int usedSlots;
+    private int size;
+    private long liveBytes;
+    private long deadBytes;
+
+    /**
+     * @desc Constructs an empty store with 16 MB slabs.
+     */
+    public OffHeapContactStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @desc Constructs an empty store.
+     * @param slabSize The size in bytes of each direct buffer records are written into.
+     */
+    public OffHeapContactStore(int slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * @desc Adds a contact unless one with the same name is already stored.
+     * @param contact The contact to add.
+     * @return True if the contact was added, false if it is a duplicate.
+     */
+    public boolean addContact(Contact contact) {
+        lock.writeLock().lock();
+        try {
+            byte[] first = utf8(contact.firstName);
+            byte[] last = utf8(contact.lastName);
+            if (findSlot(contact.firstName, contact.lastName, first, last) >= 0) {
+                return false;
+            }
+            insertIndex(contact.firstName, contact.lastName, append(contact));
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Replaces the contact with the given name by one with a new address, phone number and email.
+     * @return True if the contact was updated, false if no contact has that name.
+     */
+    public boolean editContact(String firstName, String lastName, String address, String city, String state,
+                               String zip, String phoneNumber, String email) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(firstName, lastName, utf8(firstName), utf8(lastName));
+            if (slot < 0) {
+                return false;
+            }
+            markDeleted(index[slot] - 1);
+            index[slot] = append(new Contact(firstName, lastName, address, city, state, zip, phoneNumber, email)) + 1;
+            compactIfWasteful();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Deletes the contact with the given name.
+     * @return The deleted contact, or null if no contact has that name.
+     */
+    public Contact deleteContact(String firstName, String lastName) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(firstName, lastName, utf8(firstName), utf8(lastName));
+            if (slot < 0) {
+                return null;
+            }
+            long address = index[slot] - 1;
+            Contact contact = decode(address);
+            markDeleted(address);
+            index[slot] = DELETED;
+            size--;
+            compactIfWasteful();
+            return contact;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Looks a contact up by name.
+     * @return The contact, or null if no contact has that name.
+     */
+    public Contact getContact(String firstName, String lastName) {
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(firstName, lastName, utf8(firstName), utf8(lastName));
+            return slot < 0 ? null : decode(index[slot] - 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Contact get(String firstName, String lastName) {
+        return getContact(firstName, lastName);
+    }
+
+    @Override
+    public boolean contains(String firstName, String lastName) {
+        lock.readLock().lock();
+        try {
+            return findSlot(firstName, lastName, utf8(firstName), utf8(lastName)) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean add(Contact contact) {
+        return addContact(contact);
+    }
+
+    /**
+     * @desc Stores a contact, replacing any contact with the same name. The new record is appended, so unlike
+     *       a HeapContactStore the contact moves to the end of the iteration order.
+     * @return The contact replaced, or null if none had that name.
+     */
+    @Override
+    public Contact put(Contact contact) {
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(contact.firstName, contact.lastName, utf8(contact.firstName), utf8(contact.lastName));
+            if (slot < 0) {
+                insertIndex(contact.firstName, contact.lastName, append(contact));
+                size++;
+                return null;
+            }
+            long address = index[slot] - 1;
+            Contact previous = decode(address);
+            markDeleted(address);
+            index[slot] = append(contact) + 1;
+            compactIfWasteful();
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Contact remove(String firstName, String lastName) {
+        return deleteContact(firstName, lastName);
+    }
+
+    /**
+     * @desc Decodes every contact into a new list.
+     */
+    @Override
+    public Collection<Contact> values() {
+        lock.readLock().lock();
+        try {
+            List<Contact> contacts = new ArrayList<>(size);
+            forEachRecord(address -> contacts.add(decode(address)));
+            return contacts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public ContactStore newStore(int expectedSize) {
+        return new OffHeapContactStore(slabSize);
+    }
+
+    /**
+     * @desc Search for persons in a city. Records are compared in place; only matches are decoded.
+     * @param cityName The city to search for.
+     * @return List of persons in the specified city.
+     */
+    public List<Contact> searchPersonInCity(String cityName) {
+        return searchField(CITY_FIELD, cityName);
+    }
+
+    /**
+     * @desc Search for persons in a state. Records are compared in place; only matches are decoded.
+     * @param stateName The state to search for.
+     * @return List of persons in the specified state.
+     */
+    public List<Contact> searchPersonInState(String stateName) {
+        return searchField(STATE_FIELD, stateName);
+    }
+
+    /**
+     * @desc Search for persons with a ZIP code. Records are compared in place; only matches are decoded.
+     * @param zip The ZIP code to search for.
+     * @return List of persons with the specified ZIP code.
+     */
+    public List<Contact> searchPersonInZip(String zip) {
+        return searchField(ZIP_FIELD, zip);
+    }
+
+    /**
+     * @desc Get the count of contact persons by city, decoding only the city field of each record.
+     * @return Map containing the count of contact persons by city.
+     */
+    public Map<String, Long> getCountByCity() {
+        return countField(CITY_FIELD);
+    }
+
+    /**
+     * @desc Get the count of contact persons by state, decoding only the state field of each record.
+     * @return Map containing the count of contact persons by state.
+     */
+    public Map<String, Long> getCountByState() {
+        return countField(STATE_FIELD);
+    }
+
+    /**
+     * @desc Gets all contacts sorted by person's name.
+     */
+    public List<Contact> sortByName() {
+        return sorted(Comparator.naturalOrder());
+    }
+
+    /**
+     * @desc Gets all contacts sorted by city.
+     */
+    public List<Contact> sortByCity() {
+        return sorted(Comparator.comparing(Contact::getCity));
+    }
+
+    /**
+     * @desc Gets all contacts sorted by state.
+     */
+    public List<Contact> sortByState() {
+        return sorted(Comparator.comparing(Contact::getState));
+    }
+
+    /**
+     * @desc Gets all contacts sorted by ZIP code.
+     */
+    public List<Contact> sortByZip() {
+        return sorted(Comparator.comparing(Contact::getZip));
+    }
+
+    /**
+     * @desc Decodes every contact in insertion order and passes it to an action.
+     * @param action The action to run for each contact.
+     */
+    public void forEach(Consumer<Contact> action) {
+        lock.readLock().lock();
+        try {
+            forEachRecord(address -> action.accept(decode(address)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Gets the number of contacts in the store.
+     */
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @desc Gets the number of off-heap bytes allocated for records, including space held by deleted records.
+     */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return slabs.stream().mapToLong(ByteBuffer::capacity).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Contact> sorted(Comparator<Contact> comparator) {
+        List<Contact> contacts = new ArrayList<>();
+        forEach(contacts::add);
+        contacts.sort(comparator);
+        return contacts;
+    }
+
+    private List<Contact> searchField(int field, String value) {
+        byte[] expected = utf8(value);
+        List<Contact> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachRecord(address -> {
+                ByteBuffer slab = slabs.get(slabOf(address));
+                if (fieldEquals(slab, fieldPosition(slab, offsetOf(address), field), expected)) {
+                    matches.add(decode(address));
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    private Map<String, Long> countField(int field) {
+        Map<String, Long> counts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            forEachRecord(address -> {
+                ByteBuffer slab = slabs.get(slabOf(address));
+                int position = fieldPosition(slab, offsetOf(address), field);
+                counts.merge(decodeString(slab, position), 1L, Long::sum);
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    /**
+     * @desc Visits the address of every live record in insertion order.
+     */
+    private void forEachRecord(LongConsumer visitor) {
+        for (int slabIndex = 0; slabIndex < slabs.size(); slabIndex++) {
+            ByteBuffer slab = slabs.get(slabIndex);
+            int end = slabIndex == slabs.size() - 1 ? slabPosition : slab.capacity();
+            int offset = 0;
+            while (offset + Integer.BYTES <= end) {
+                int length = slab.getInt(offset);
+                if (length == 0) {
+                    // Unused tail of the slab
+                    break;
+                }
+                if (length > 0) {
+                    visitor.accept(address(slabIndex, offset));
+                }
+                offset += Math.abs(length);
+            }
+        }
+    }
+
+    /**
+     * @desc Writes a contact as a new record at the end of the last slab, starting a new slab when it does not fit.
+     * @return The address of the record.
+     */
+    private long append(Contact contact) {
+        byte[][] fields = new byte[FIELD_COUNT][];
+        String[] values = {contact.firstName, contact.lastName, contact.address, contact.city,
+                contact.state, contact.zip, contact.phoneNumber, contact.email};
+        int length = Integer.BYTES;
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            fields[i] = utf8(values[i]);
+            length += Integer.BYTES + (fields[i] == null ? 0 : fields[i].length);
+        }
+        if (slabs.isEmpty() || slabPosition + length > slabs.get(slabs.size() - 1).capacity()) {
+            slabs.add(ByteBuffer.allocateDirect(Math.max(slabSize, length)));
+            slabPosition = 0;
+        }
+        int slabIndex = slabs.size() - 1;
+        ByteBuffer slab = slabs.get(slabIndex);
+        int offset = slabPosition;
+        slab.putInt(offset, length);
+        int position = offset + Integer.BYTES;
+        for (byte[] field : fields) {
+            if (field == null) {
+                slab.putInt(position, NULL_LENGTH);
+                position += Integer.BYTES;
+                continue;
+            }
+            slab.putInt(position, field.length);
+            slab.put(position + Integer.BYTES, field);
+            position += Integer.BYTES + field.length;
+        }
+        slabPosition += length;
+        liveBytes += length;
+        return address(slabIndex, offset);
+    }
+
+    private void markDeleted(long address) {
+        ByteBuffer slab = slabs.get(slabOf(address));
+        int length = slab.getInt(offsetOf(address));
+        slab.putInt(offsetOf(address), -length);
+        liveBytes -= length;
+        deadBytes += length;
+    }
+
+    /**
+     * @desc Copies the live records into fresh slabs once deleted records take more space than live ones.
+     */
+    private void compactIfWasteful() {
+        if (deadBytes <= liveBytes || deadBytes < slabSize) {
+            return;
+        }
+        List<Contact> live = new ArrayList<>(size);
+        forEachRecord(address -> live.add(decode(address)));
+        slabs = new ArrayList<>();
+        slabPosition = 0;
+        liveBytes = 0;
+        deadBytes = 0;
+        index = new long[index.length];
+        usedSlots = 0;
+        for (Contact contact : live) {
+            insertIndex(contact.firstName, contact.lastName, append(contact));
+        }
+    }
+
+    /**
+     * @desc Finds the index slot holding the record with the given name.
+     * @return The slot, or -1 if no record has that name.
+     */
+    private int findSlot(String firstName, String lastName, byte[] first, byte[] last) {
+        int slot = slotFor(firstName, lastName, index.length);
+        while (true) {
+            long entry = index[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != DELETED) {
+                long address = entry - 1;
+                ByteBuffer slab = slabs.get(slabOf(address));
+                int position = offsetOf(address) + Integer.BYTES;
+                if (fieldEquals(slab, position, first)
+                        && fieldEquals(slab, position + fieldSize(slab, position), last)) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & (index.length - 1);
+        }
+    }
+
+    private void insertIndex(String firstName, String lastName, long address) {
+        if ((usedSlots + 1) * 2 > index.length) {
+            rehash();
+        }
+        int slot = slotFor(firstName, lastName, index.length);
+        while (index[slot] != EMPTY && index[slot] != DELETED) {
+            slot = (slot + 1) & (index.length - 1);
+        }
+        if (index[slot] == EMPTY) {
+            usedSlots++;
+        }
+        index[slot] = address + 1;
+    }
+
+    /**
+     * @desc Rebuilds the name index, dropping deleted slots and doubling it when it is more than a quarter full.
+     */
+    private void rehash() {
+        long[] old = index;
+        int live = 0;
+        for (long entry : old) {
+            if (entry != EMPTY && entry != DELETED) {
+                live++;
+            }
+        }
+        index = new long[live * 4 > old.length ? old.length * 2 : old.length];
+        usedSlots = 0;
+        for (long entry : old) {
+            if (entry != EMPTY && entry != DELETED) {
+                Contact name = decodeName(entry - 1);
+                insertIndex(name.firstName, name.lastName, entry - 1);
+            }
+        }
+    }
+
+    private Contact decode(long address) {
+        return decodeFields(address, FIELD_COUNT);
+    }
+
+    /**
+     * @desc Decodes only the first and last name of a record.
+     */
+    private Contact decodeName(long address) {
+        return decodeFields(address, 2);
+    }
+
+    private Contact decodeFields(long address, int count) {
+        ByteBuffer slab = slabs.get(slabOf(address));
+        String[] fields = new String[FIELD_COUNT];
+        int position = offsetOf(address) + Integer.BYTES;
+        for (int i = 0; i < count; i++) {
+            fields[i] = decodeString(slab, position);
+            position += fieldSize(slab, position);
+        }
+        return new Contact(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6], fields[7]);
+    }
+
+    private static String decodeString(ByteBuffer slab, int position) {
+        if (slab.getInt(position) == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[slab.getInt(position)];
+        slab.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int fieldPosition(ByteBuffer slab, int offset, int field) {
+        int position = offset + Integer.BYTES;
+        for (int i = 0; i < field; i++) {
+            position += fieldSize(slab, position);
+        }
+        return position;
+    }
+
+    /**
+     * @desc Gets the number of bytes a field takes in a record, its length included.
+     */
+    private static int fieldSize(ByteBuffer slab, int position) {
+        return Integer.BYTES + Math.max(0, slab.getInt(position));
+    }
+
+    private static boolean fieldEquals(ByteBuffer slab, int position, byte[] expected) {
+        if (expected == null) {
+            return slab.getInt(position) == NULL_LENGTH;
+        }
+        if (slab.getInt(position) != expected.length) {
+            return false;
+        }
+        int start = position + Integer.BYTES;
+        for (int i = 0; i < expected.length; i++) {
+            if (slab.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long address(int slabIndex, int offset) {
+        return ((long) slabIndex << 32) | offset;
+    }
+
+    private static int slabOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    /**
+     * @desc Picks the first index slot for a name, scrambling the Contact hash code so similar names spread out.
+     */
+    private static int slotFor(String firstName, String lastName, int slots) {
+        int hash = Objects.hash(firstName, lastName) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (slots - 1);
+    }
+}
@@ -0,0 +1,655 @@
+package com.bridgelabz.addressbook;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+
+/**
+ * @desc Turns a ContactQuery into a tree of plan steps over one address book.
+ *
+ *       A comparison on an indexed field (city, state, ZIP code) reads the index entry, or the range of entries
+ *       for a prefix. First and last name together read the contact store directly. A conjunction starts
+ *       from its most selective indexed part and probes the others; the parts no index can answer are
+ *       checked on the rows that remain. A disjunction is the union of its parts when every part can use an
+ *       index. Only when no part of the filter can use an index is every contact scanned.
+ *
+ *       Sorting on an indexed field with no usable index for the filter walks that index in key order and
+ *       stops as soon as the page is full, instead of sorting every match.
+ *
+ *       Plans read the address book directly, so the caller holds its read lock while planning and running them.
+ */
+final class QueryPlanner {
+    private final AddressBookList addressBook;
+
+    QueryPlanner(AddressBookList addressBook) {
+        this.addressBook = addressBook;
+    }
+
+    /**
+     * @desc Plans a whole query: filter, sort, offset and limit.
+     * @param query The query.
+     * @return The root of the plan.
+     */
+    Plan plan(ContactQuery query) {
+        ContactFilter filter = query.getFilter();
+        Plan access = filter == null ? null : accessPath(filter);
+        ContactField sortField = query.getSortField();
+        Plan plan;
+        if (sortField != null && access == null && addressBook.indexOf(sortField) != null) {
+            long needed = query.hasLimit() ? (long) query.getOffset() + query.getLimit() : Long.MAX_VALUE;
+            plan = new IndexOrderScan(sortField, addressBook.indexOf(sortField), query.isAscending(), filter, needed);
+        } else {
+            plan = planFilter(filter);
+            if (sortField != null) {
+                plan = new Sort(plan, query);
+            }
+        }
+        if (query.getOffset() > 0 || query.hasLimit()) {
+            plan = new Slice(plan, query.getOffset(), query.getLimit());
+        }
+        return plan;
+    }
+
+    /**
+     * @desc Plans a filter alone, falling back to a scan of every contact when no index can answer it.
+     * @param filter The filter, or null to match every contact.
+     * @return The plan producing the matching contacts.
+     */
+    Plan planFilter(ContactFilter filter) {
+        if (filter == null) {
+            return new FullScan(addressBook.storedContacts(), null);
+        }
+        Plan access = accessPath(filter);
+        return access != null ? access : new FullScan(addressBook.storedContacts(), filter);
+    }
+
+    /**
+     * @desc Finds a plan for a filter that does not scan every contact.
+     * @return The plan, or null if the filter cannot be answered without a full scan.
+     */
+    private Plan accessPath(ContactFilter filter) {
+        if (filter instanceof ContactFilter.FieldEquals) {
+            ContactFilter.FieldEquals equals = (ContactFilter.FieldEquals) filter;
+            NavigableMap<String, Set<Contact>> index = addressBook.indexOf(equals.field);
+            return index == null ? null : new IndexLookup(equals, index);
+        }
+        if (filter instanceof ContactFilter.FieldStartsWith) {
+            ContactFilter.FieldStartsWith startsWith = (ContactFilter.FieldStartsWith) filter;
+            NavigableMap<String, Set<Contact>> index = addressBook.indexOf(startsWith.field);
+            return index == null ? null : new IndexRange(startsWith, index);
+        }
+        if (filter instanceof ContactFilter.And) {
+            return conjunction(((ContactFilter.And) filter).filters);
+        }
+        if (filter instanceof ContactFilter.Or) {
+            List<Plan> parts = new ArrayList<>();
+            for (ContactFilter part : ((ContactFilter.Or) filter).filters) {
+                Plan partPlan = accessPath(part);
+                if (partPlan == null) {
+                    // One part needs a scan, so the scan may as well check all of them
+                    return null;
+                }
+                parts.add(partPlan);
+            }
+            return new Union(parts);
+        }
+        return null;
+    }
+
+    private Plan conjunction(List<ContactFilter> filters) {
+        List<Plan> indexed = new ArrayList<>();
+        List<ContactFilter> residual = new ArrayList<>();
+        String firstName = null;
+        String lastName = null;
+        for (ContactFilter part : filters) {
+            if (part instanceof ContactFilter.FieldEquals) {
+                ContactFilter.FieldEquals equals = (ContactFilter.FieldEquals) part;
+                if (equals.field == ContactField.FIRST_NAME) {
+                    firstName = equals.value;
+                } else if (equals.field == ContactField.LAST_NAME) {
+                    lastName = equals.value;
+                }
+            }
+            Plan partPlan = accessPath(part);
+            if (partPlan != null) {
+                indexed.add(partPlan);
+            } else {
+                residual.add(part);
+            }
+        }
+        if (firstName != null && lastName != null) {
+            // At most one contact has this name; every other part is checked against it
+            return new Filter(new KeyLookup(addressBook.stored(firstName, lastName), firstName, lastName),
+                    new ContactFilter.And(filters));
+        }
+        if (indexed.isEmpty()) {
+            return null;
+        }
+        indexed.sort(Comparator.comparingLong(Plan::estimate));
+        Plan plan = indexed.size() == 1 ? indexed.get(0) : new Intersect(indexed);
+        return residual.isEmpty() ? plan : new Filter(plan, ContactFilter.allOf(residual.toArray(new ContactFilter[0])));
+    }
+
+    /**
+     * @desc One step of a plan. Steps produce their rows when run and can test single contacts, which lets a
+     *       conjunction probe its other parts without running them.
+     */
+    abstract static class Plan {
+
+        /**
+         * @desc Runs the step.
+         * @return The contacts it produces.
+         */
+        abstract Collection<Contact> rows();
+
+        /**
+         * @desc Checks whether the step would produce a contact.
+         */
+        abstract boolean contains(Contact contact);
+
+        /**
+         * @desc Estimates the number of rows the step produces.
+         */
+        abstract long estimate();
+
+        /**
+         * @desc Counts the rows. Steps that know their size without running override this.
+         */
+        long count() {
+            return rows().size();
+        }
+
+        abstract String describe();
+
+        List<Plan> children() {
+            return Collections.emptyList();
+        }
+
+        /**
+         * @desc Renders the plan as an indented tree, one step per line.
+         */
+        String explain() {
+            StringBuilder result = new StringBuilder();
+            explain(result, 0);
+            return result.toString();
+        }
+
+        private void explain(StringBuilder result, int depth) {
+            for (int i = 0; i < depth; i++) {
+                result.append("  ");
+            }
+            result.append(describe()).append(" (~").append(estimate()).append(" rows)\n");
+            for (Plan child : children()) {
+                child.explain(result, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * @desc Reads every contact, keeping those that pass the filter.
+     */
+    private static final class FullScan extends Plan {
+        private final Collection<Contact> contacts;
+        private final ContactFilter filter;
+
+        FullScan(Collection<Contact> contacts, ContactFilter filter) {
+            this.contacts = contacts;
+            this.filter = filter;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            if (filter == null) {
+                return contacts;
+            }
+            List<Contact> matches = new ArrayList<>();
+            for (Contact contact : contacts) {
+                if (filter.matches(contact)) {
+                    matches.add(contact);
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return filter == null || filter.matches(contact);
+        }
+
+        @Override
+        long estimate() {
+            return contacts.size();
+        }
+
+        @Override
+        long count() {
+            return filter == null ? contacts.size() : rows().size();
+        }
+
+        @Override
+        String describe() {
+            return filter == null ? "FullScan" : "FullScan filter " + filter;
+        }
+    }
+
+    /**
+     * @desc Reads one entry of a field index.
+     */
+    private static final class IndexLookup extends Plan {
+        private final ContactFilter.FieldEquals equals;
+        private final Set<Contact> postings;
+
+        IndexLookup(ContactFilter.FieldEquals equals, NavigableMap<String, Set<Contact>> index) {
+            this.equals = equals;
+            Set<Contact> entry = index.get(equals.value);
+            this.postings = entry == null ? Collections.emptySet() : entry;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            return postings;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return postings.contains(contact);
+        }
+
+        @Override
+        long estimate() {
+            return postings.size();
+        }
+
+        @Override
+        long count() {
+            return postings.size();
+        }
+
+        @Override
+        String describe() {
+            return "IndexLookup " + equals;
+        }
+    }
+
+    /**
+     * @desc Reads the entries of a field index whose keys start with a prefix.
+     */
+    private static final class IndexRange extends Plan {
+        private final ContactFilter.FieldStartsWith startsWith;
+        private final List<Set<Contact>> entries = new ArrayList<>();
+        private long size;
+
+        IndexRange(ContactFilter.FieldStartsWith startsWith, NavigableMap<String, Set<Contact>> index) {
+            this.startsWith = startsWith;
+            // Keys are in order, so the matching keys are one contiguous run starting at the prefix
+            for (Map.Entry<String, Set<Contact>> entry : index.tailMap(startsWith.prefix, true).entrySet()) {
+                if (!entry.getKey().startsWith(startsWith.prefix)) {
+                    break;
+                }
+                entries.add(entry.getValue());
+                size += entry.getValue().size();
+            }
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            List<Contact> matches = new ArrayList<>((int) size);
+            entries.forEach(matches::addAll);
+            return matches;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return startsWith.matches(contact);
+        }
+
+        @Override
+        long estimate() {
+            return size;
+        }
+
+        @Override
+        long count() {
+            return size;
+        }
+
+        @Override
+        String describe() {
+            return "IndexRange " + startsWith + " over " + entries.size() + " keys";
+        }
+    }
+
+    /**
+     * @desc Reads the contact with a given first and last name from the contact store.
+     */
+    private static final class KeyLookup extends Plan {
+        private final Contact contact;
+        private final String firstName;
+        private final String lastName;
+
+        KeyLookup(Contact contact, String firstName, String lastName) {
+            this.contact = contact;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            return contact == null ? Collections.emptyList() : Collections.singletonList(contact);
+        }
+
+        @Override
+        boolean contains(Contact other) {
+            return contact != null && contact.equals(other);
+        }
+
+        @Override
+        long estimate() {
+            return contact == null ? 0 : 1;
+        }
+
+        @Override
+        String describe() {
+            return "KeyLookup FIRST_NAME = \"" + firstName + "\", LAST_NAME = \"" + lastName + "\"";
+        }
+    }
+
+    /**
+     * @desc Contacts produced by every part. The first, smallest part drives; each of its rows is probed in the others.
+     */
+    private static final class Intersect extends Plan {
+        private final List<Plan> parts;
+
+        Intersect(List<Plan> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            List<Contact> matches = new ArrayList<>();
+            for (Contact contact : parts.get(0).rows()) {
+                if (inOthers(contact)) {
+                    matches.add(contact);
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return parts.get(0).contains(contact) && inOthers(contact);
+        }
+
+        private boolean inOthers(Contact contact) {
+            for (int i = 1; i < parts.size(); i++) {
+                if (!parts.get(i).contains(contact)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        long estimate() {
+            return parts.get(0).estimate();
+        }
+
+        @Override
+        String describe() {
+            return "Intersect";
+        }
+
+        @Override
+        List<Plan> children() {
+            return parts;
+        }
+    }
+
+    /**
+     * @desc Contacts produced by any part, each once.
+     */
+    private static final class Union extends Plan {
+        private final List<Plan> parts;
+
+        Union(List<Plan> parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            Set<Contact> matches = new LinkedHashSet<>();
+            for (Plan part : parts) {
+                matches.addAll(part.rows());
+            }
+            return matches;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            for (Plan part : parts) {
+                if (part.contains(contact)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        long estimate() {
+            long total = 0;
+            for (Plan part : parts) {
+                total += part.estimate();
+            }
+            return total;
+        }
+
+        @Override
+        String describe() {
+            return "Union";
+        }
+
+        @Override
+        List<Plan> children() {
+            return parts;
+        }
+    }
+
+    /**
+     * @desc Rows of another step that also pass a filter no index could answer.
+     */
+    private static final class Filter extends Plan {
+        private final Plan input;
+        private final ContactFilter filter;
+
+        Filter(Plan input, ContactFilter filter) {
+            this.input = input;
+            this.filter = filter;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            List<Contact> matches = new ArrayList<>();
+            for (Contact contact : input.rows()) {
+                if (filter.matches(contact)) {
+                    matches.add(contact);
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return input.contains(contact) && filter.matches(contact);
+        }
+
+        @Override
+        long estimate() {
+            return input.estimate();
+        }
+
+        @Override
+        String describe() {
+            return "Filter " + filter;
+        }
+
+        @Override
+        List<Plan> children() {
+            return Collections.singletonList(input);
+        }
+    }
+
+    /**
+     * @desc Walks a field index in key order, sorting each entry by name, until enough rows pass the filter.
+     */
+    private static final class IndexOrderScan extends Plan {
+        private final ContactField field;
+        private final NavigableMap<String, Set<Contact>> index;
+        private final boolean ascending;
+        private final ContactFilter filter;
+        private final long needed;
+
+        IndexOrderScan(ContactField field, NavigableMap<String, Set<Contact>> index, boolean ascending,
+                       ContactFilter filter, long needed) {
+            this.field = field;
+            this.index = index;
+            this.ascending = ascending;
+            this.filter = filter;
+            this.needed = needed;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            List<Contact> matches = new ArrayList<>();
+            Comparator<Contact> byName = ascending ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            for (Set<Contact> entry : (ascending ? index : index.descendingMap()).values()) {
+                List<Contact> group = new ArrayList<>(entry.size());
+                for (Contact contact : entry) {
+                    if (filter == null || filter.matches(contact)) {
+                        group.add(contact);
+                    }
+                }
+                group.sort(byName);
+                matches.addAll(group);
+                if (matches.size() >= needed) {
+                    break;
+                }
+            }
+            return matches;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return filter == null || filter.matches(contact);
+        }
+
+        @Override
+        long estimate() {
+            return Math.min(needed, index.values().stream().mapToLong(Set::size).sum());
+        }
+
+        @Override
+        String describe() {
+            return "IndexOrderScan " + field + (ascending ? " ASC" : " DESC")
+                    + (filter == null ? "" : " filter " + filter)
+                    + (needed == Long.MAX_VALUE ? "" : " stop after " + needed);
+        }
+    }
+
+    /**
+     * @desc Rows of another step, sorted by the query order.
+     */
+    private static final class Sort extends Plan {
+        private final Plan input;
+        private final ContactQuery query;
+
+        Sort(Plan input, ContactQuery query) {
+            this.input = input;
+            this.query = query;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            List<Contact> sorted = new ArrayList<>(input.rows());
+            sorted.sort(query.comparator());
+            return sorted;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return input.contains(contact);
+        }
+
+        @Override
+        long estimate() {
+            return input.estimate();
+        }
+
+        @Override
+        String describe() {
+            return "Sort " + query.getSortField() + (query.isAscending() ? " ASC" : " DESC");
+        }
+
+        @Override
+        List<Plan> children() {
+            return Collections.singletonList(input);
+        }
+    }
+
+    /**
+     * @desc One page of the rows of another step.
+     */
+    private static final class Slice extends Plan {
+        private final Plan input;
+        private final int offset;
+        private final int limit;
+
+        Slice(Plan input, int offset, int limit) {
+            this.input = input;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        @Override
+        Collection<Contact> rows() {
+            List<Contact> page = new ArrayList<>();
+            int skipped = 0;
+            for (Contact contact : input.rows()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(contact);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        boolean contains(Contact contact) {
+            return input.contains(contact);
+        }
+
+        @Override
+        long estimate() {
+            return Math.max(0, Math.min(limit, input.estimate() - offset));
+        }
+
+        @Override
+        String describe() {
+            return "Slice offset " + offset + (limit == Integer.MAX_VALUE ? "" : " limit " + limit);
+        }
+
+        @Override
+        List<Plan> children() {
+            return Collections.singletonList(input);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.bridgelabz.addressbook;
+
+/**
+ * @desc The status of an AddressBookService call together with the value it produced, if any.
+ * @param <T> The type of the value.
+ */
+public final class ServiceResult<T> {
+    private final ServiceStatus status;
+    private final T value;
+    private final Exception error;
+
+    private ServiceResult(ServiceStatus status, T value, Exception error) {
+        this.status = status;
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> ServiceResult<T> ok(T value) {
+        return new ServiceResult<>(ServiceStatus.OK, value, null);
+    }
+
+    static <T> ServiceResult<T> of(ServiceStatus status) {
+        return new ServiceResult<>(status, null, null);
+    }
+
+    static <T> ServiceResult<T> failed(ServiceStatus status, Exception error) {
+        return new ServiceResult<>(status, null, error);
+    }
+
+    /**
+     * @desc Gets the outcome of the call.
+     * @return The status.
+     */
+    public ServiceStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @desc Checks whether the call succeeded.
+     * @return True if the status is OK.
+     */
+    public boolean isOk() {
+        return status == ServiceStatus.OK;
+    }
+
+    /**
+     * @desc Gets the value produced by the call.
+     * @return The value, or null if the call failed.
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @desc Gets the exception that made the call fail, for logging.
+     * @return The exception, or null if the call succeeded or failed without one.
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return value == null ? status.toString() : status + ": " + value;
+    }
+}
@@ -0,0 +1,23 @@
+package com.bridgelabz.addressbook;
+
+/**
+ * @desc The outcome of an AddressBookService call.
+ */
+public enum ServiceStatus {
+    // The call succeeded
+    OK,
+    // A new Address Book was created
+    CREATED,
+    // An Address Book with that name already exists
+    ALREADY_EXISTS,
+    // The contact was not added because the Address Book already has a contact with the same name
+    DUPLICATE,
+    // No Address Book has that name
+    BOOK_NOT_FOUND,
+    // The Address Book has no contact with that name
+    CONTACT_NOT_FOUND,
+    // An argument was missing or malformed, e.g. an empty name or a cursor from elsewhere
+    INVALID,
+    // The files of the Address Book could not be read or written
+    IO_ERROR
+}
@@ -0,0 +1,104 @@
+package com.bridgelabz.addressbook;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * @desc A dictionary of canonical strings. Values that repeat across millions of contacts, such as
+ *       cities, states and ZIP codes, are stored once and shared, so each contact only pays for a
+ *       reference (4 bytes with compressed references, the same as an int dictionary code).
+ *       Unlike String.intern(), the pool lives on the regular heap and can be sized and inspected.
+ *       The pool holds its strings weakly, so a value no contact uses any more is dropped by the garbage
+ *       collector instead of staying in the pool for the life of the program. It is split into stripes,
+ *       each a WeakHashMap behind its own lock, so threads loading books at once rarely wait for each other.
+ */
+public class StringPool {
+    // Shared by all contacts for their city, state and ZIP code
+    static final StringPool LOCATIONS = new StringPool();
+
+    private static final int STRIPES = 16;
+
+    // Each value maps to a weak reference to itself, so the map never keeps its own key alive
+    private final List<Map<String, WeakReference<String>>> stripes = new ArrayList<>(STRIPES);
+
+    /**
+     * @desc Constructs an empty pool.
+     */
+    public StringPool() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes.add(new WeakHashMap<>());
+        }
+    }
+
+    /**
+     * @desc Gets the canonical instance of a string, adding it to the pool if it is new.
+     * @param value The string to look up, may be null.
+     * @return The pooled string equal to value, or null if value is null.
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        Map<String, WeakReference<String>> stripe = stripes.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(value);
+            String pooled = reference == null ? null : reference.get();
+            if (pooled != null) {
+                return pooled;
+            }
+            stripe.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @desc Gets the canonical instance of the string held in chars[start, start + length), allocating
+     *       a new String only when the value is not pooled yet and not in the caller's cache.
+     * @param chars  The characters of the value.
+     * @param start  The index of the first character.
+     * @param length The number of characters.
+     * @param cache  A direct-mapped cache of recently seen pooled strings, owned by the caller; its
+     *               length must be a power of two.
+     * @return The pooled string.
+     */
+    String intern(char[] chars, int start, int length, String[] cache) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (cache.length - 1);
+        String cached = cache[slot];
+        if (cached != null && cached.length() == length && matches(cached, chars, start)) {
+            return cached;
+        }
+        String pooled = intern(new String(chars, start, length));
+        cache[slot] = pooled;
+        return pooled;
+    }
+
+    /**
+     * @desc Gets the number of distinct strings in the pool that are still in use.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private static boolean matches(String value, char[] chars, int start) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
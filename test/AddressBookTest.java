@@ -1,8 +1,27 @@
 import com.bridgelabz.addressbook.AddressBookList;
+import com.bridgelabz.addressbook.AddressBookMetrics;
+import com.bridgelabz.addressbook.AddressBookService;
 import com.bridgelabz.addressbook.Contact;
+import com.bridgelabz.addressbook.ContactField;
+import com.bridgelabz.addressbook.ContactFilter;
+import com.bridgelabz.addressbook.ContactPage;
+import com.bridgelabz.addressbook.ContactQuery;
+import com.bridgelabz.addressbook.ContactUpdate;
+import com.bridgelabz.addressbook.ImportSummary;
+import com.bridgelabz.addressbook.ServiceResult;
+import com.bridgelabz.addressbook.ServiceStatus;
 import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @desc Test cases to check the count by state and count by city function
@@ -56,4 +75,307 @@ public class AddressBookTest {
         assertEquals(1, countByState.get("State2")); // Expecting 1 person in State2
         assertEquals(null, countByState.get("NonExistentState")); // Expecting null for a state with no persons
     }
+
+    @Test
+    void testDuplicateContactIsNotAddedTwice() {
+        AddressBookList addressBookList = new AddressBookList();
+
+        // Same first and last name, different details
+        addressBookList.addContact(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+        addressBookList.addContact(new Contact("John", "Doe", "Address2", "City1", "State2", "Zip2", "Phone2", "Email2"));
+
+        assertEquals(1, addressBookList.getCountByCity().get("City1")); // Duplicate is rejected
+
+        // Deleting through the name index removes the contact from the book
+        addressBookList.deleteContact("John", "Doe");
+        assertEquals(null, addressBookList.getCountByCity().get("City1"));
+    }
+
+    @Test
+    void testAddAllDedupesAndIndexesInOnePass() {
+        AddressBookList addressBookList = new AddressBookList();
+        addressBookList.addContact(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+
+        ImportSummary summary = addressBookList.addAll(Stream.of(
+                new Contact("Jane", "Smith", "Address2", "City1", "State2", "Zip2", "Phone2", "Email2"),
+                new Contact("John", "Doe", "Address3", "City2", "State3", "Zip3", "Phone3", "Email3"), // Already in the book
+                null,
+                new Contact("Alice", "Johnson", "Address4", "City2", "State2", "Zip4", "Phone4", "Email4"),
+                new Contact("Jane", "Smith", "Address5", "City3", "State3", "Zip5", "Phone5", "Email5"))); // Earlier in the import
+
+        assertEquals(2, summary.getAdded());
+        assertEquals(2, summary.getDuplicates());
+        assertEquals(1, summary.getRejected());
+        assertEquals(3, addressBookList.size());
+        assertEquals(2, addressBookList.getCountByCity().get("City1"));
+        assertEquals(1, addressBookList.getCountByCity().get("City2"));
+        assertEquals(2, addressBookList.getCountByState().get("State2"));
+        assertEquals(1, addressBookList.searchByName("ali", 10).size());
+    }
+
+    @Test
+    void testServiceReportsStatusWithoutConsole() {
+        AddressBookService service = new AddressBookService();
+        String book = "ServiceTestBook";
+
+        assertEquals(ServiceStatus.CREATED, service.createAddressBook(book));
+        assertEquals(ServiceStatus.ALREADY_EXISTS, service.createAddressBook(book));
+        assertEquals(ServiceStatus.BOOK_NOT_FOUND,
+                service.addContact("NoSuchBook", new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+
+        assertEquals(ServiceStatus.OK,
+                service.addContact(book, new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+        assertEquals(ServiceStatus.DUPLICATE,
+                service.addContact(book, new Contact("John", "Doe", "Address2", "City2", "State2", "Zip2", "Phone2", "Email2")));
+
+        ContactUpdate update = new ContactUpdate("Address3", "City3", "State3", "Zip3", "Phone3", "Email3");
+        assertEquals(ServiceStatus.OK, service.editContact(book, "John", "Doe", update));
+        assertEquals(ServiceStatus.CONTACT_NOT_FOUND, service.editContact(book, "Jane", "Doe", update));
+        assertEquals("City3", service.getContact(book, "John", "Doe").getValue().getCity());
+        assertEquals(1, service.listContacts(book, ContactField.CITY).getValue().size());
+        assertEquals(ServiceStatus.INVALID, service.pageContacts(book, "not a cursor", 10).getStatus());
+
+        assertEquals(ServiceStatus.OK, service.deleteContact(book, "John", "Doe"));
+        assertEquals(ServiceStatus.CONTACT_NOT_FOUND, service.deleteContact(book, "John", "Doe"));
+    }
+
+    @Test
+    void testServiceValidatesIndexedFieldsWithoutPrinting() throws Exception {
+        new java.io.File("Contacts").mkdirs();
+        java.io.PrintStream console = System.out;
+        java.io.ByteArrayOutputStream printed = new java.io.ByteArrayOutputStream();
+        System.setOut(new java.io.PrintStream(printed));
+        try {
+            AddressBookService service = new AddressBookService(0, true);
+            String book = "QuietServiceBook" + System.nanoTime();
+            assertEquals(ServiceStatus.CREATED, service.createAddressBook(book));
+
+            // Opening the journal of a book with no file yet prints nothing
+            assertEquals(ServiceStatus.OK, service.openAddressBook(book).getStatus());
+            assertEquals(ServiceStatus.INVALID,
+                    service.addContact(book, new Contact("John", "Doe", "Address1", null, "State1", "Zip1", "Phone1", "Email1")));
+            assertEquals(ServiceStatus.INVALID,
+                    service.addContact(book, new Contact("John", "Doe", "Address1", "City1", "State1", null, "Phone1", "Email1")));
+            assertEquals(ServiceStatus.OK,
+                    service.addContact(book, new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+            assertEquals(ServiceStatus.INVALID, service.editContact(book, "John", "Doe",
+                    new ContactUpdate("Address2", "City2", null, "Zip2", "Phone2", "Email2")));
+            assertEquals(ServiceStatus.INVALID, service.editContact(book, null, "Doe",
+                    new ContactUpdate("Address2", "City2", "State2", "Zip2", "Phone2", "Email2")));
+            assertEquals("City1", service.getContact(book, "John", "Doe").getValue().getCity());
+
+            // The bulk path rejects the same contacts
+            ImportSummary added = service.addContacts(book, java.util.stream.Stream.of(
+                    new Contact("Jane", "Doe", "Address2", "City2", null, "Zip2", "Phone2", "Email2"),
+                    new Contact("", "Smith", "Address3", "City3", "State3", "Zip3", "Phone3", "Email3"),
+                    new Contact("Alice", "Smith", "Address4", "City4", "State4", "Zip4", "Phone4", "Email4"))).getValue();
+            assertEquals(1, added.getAdded());
+            assertEquals(2, added.getRejected());
+            assertEquals(ServiceStatus.CONTACT_NOT_FOUND, service.getContact(book, "Jane", "Doe").getStatus());
+            service.close();
+            for (java.io.File file : new java.io.File("Contacts").listFiles((directory, name) -> name.startsWith(book + "."))) {
+                file.delete();
+            }
+        } finally {
+            System.setOut(console);
+        }
+        assertEquals("", printed.toString());
+    }
+
+    @Test
+    void testServiceRejectsBookNamesOutsideContactsDirectory() {
+        AddressBookService service = new AddressBookService();
+
+        // Book names become file names, so separators and dots would reach files outside the Contacts directory
+        assertEquals(ServiceStatus.INVALID, service.createAddressBook("../../etc/passwd"));
+        assertEquals(ServiceStatus.INVALID, service.createAddressBook("..\\Outside"));
+        assertEquals(ServiceStatus.INVALID, service.createAddressBook("Book.txt"));
+        assertEquals(ServiceStatus.INVALID, service.saveAddressBook("../Outside"));
+        assertEquals(ServiceStatus.INVALID, service.openAddressBook("../Outside").getStatus());
+        assertEquals(ServiceStatus.INVALID, service.getContact("..%2F..%2FOutside", "John", "Doe").getStatus());
+        assertEquals(ServiceStatus.CREATED, service.createAddressBook("Safe Book_1-2"));
+    }
+
+    @Test
+    void testSaveChangedSkipsUnloadedAndUnchangedBooks() {
+        new java.io.File("Contacts").mkdirs();
+        AddressBookMetrics metrics = AddressBookMetrics.getDefault();
+        // Room for two contacts, so the third unloads the least recently used book
+        AddressBookService service = new AddressBookService(2 * 1536, false);
+        long unloads = metrics.getMetric("cache.unloads"); // Counts for the cache of this service
+        String older = "SaveChangedOld" + System.nanoTime();
+        String newer = "SaveChangedNew" + System.nanoTime();
+        service.createAddressBook(older);
+        service.createAddressBook(newer);
+        service.addContact(older, new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+        service.addContact(older, new Contact("Jane", "Doe", "Address2", "City1", "State1", "Zip2", "Phone2", "Email2"));
+        service.addContact(newer, new Contact("Alice", "Smith", "Address3", "City2", "State2", "Zip3", "Phone3", "Email3"));
+        long loads = metrics.getMetric("cache.loads");
+
+        // The older book is saved when it is unloaded, so only the newer one is saved, and nothing is read back
+        ServiceResult<List<String>> saved = service.saveChangedAddressBooks();
+        assertEquals(List.of(newer), saved.getValue());
+        assertEquals(unloads + 1, metrics.getMetric("cache.unloads"));
+        assertTrue(new java.io.File("Contacts", older + ".txt").isFile());
+        assertEquals(loads, metrics.getMetric("cache.loads"));
+        assertEquals(List.of(), service.saveChangedAddressBooks().getValue()); // Nothing changed since
+
+        new java.io.File("Contacts", older + ".txt").delete();
+        new java.io.File("Contacts", newer + ".txt").delete();
+    }
+
+    @Test
+    void testJournalKeepsEditAcrossCompaction() throws Exception {
+        new java.io.File("Contacts").mkdirs();
+        String book = "JournalTestBook";
+        java.io.File[] leftovers = new java.io.File("Contacts").listFiles((directory, name) -> name.startsWith(book + "."));
+        if (leftovers != null) {
+            for (java.io.File file : leftovers) {
+                file.delete();
+            }
+        }
+
+        AddressBookService service = new AddressBookService(0, true);
+        assertEquals(ServiceStatus.CREATED, service.createAddressBook(book));
+        // 10,000 add records, so the delete record of the edit below starts a compaction before its add record
+        service.addContacts(book, IntStream.range(0, 10_000).mapToObj(i ->
+                new Contact("First" + i, "Last" + i, "Address" + i, "OldCity", "State1", "Zip1", "Phone1", "Email1")));
+        assertEquals(ServiceStatus.OK, service.editContact(book, "First0", "Last0",
+                new ContactUpdate("Address0", "NewCity", "State2", "Zip2", "Phone2", "Email2")));
+        service.close();
+
+        AddressBookService reopened = new AddressBookService(0, true);
+        reopened.createAddressBook(book);
+        Contact recovered = reopened.getContact(book, "First0", "Last0").getValue();
+        assertEquals("NewCity", recovered.getCity());
+        assertEquals("State2", recovered.getState());
+        assertEquals(10_000, reopened.listContacts(book, null).getValue().size());
+        reopened.close();
+    }
+
+    @Test
+    void testCsvRoundTripWithCommasAndQuotes() {
+        Contact contact = new Contact("John", "Doe", "12, \"Main\" Road", "City1", "State1", "Zip1", "Phone1", "");
+
+        String csv = contact.toCsvString();
+        assertEquals("John,Doe,\"12, \"\"Main\"\" Road\",City1,State1,Zip1,Phone1,", csv);
+
+        // Parsing the written line gives back the same fields
+        assertEquals(csv, Contact.fromCsvString(csv).toCsvString());
+    }
+
+    @Test
+    void testConcurrentAddDeleteAndSearch() throws Exception {
+        AddressBookList addressBookList = new AddressBookList();
+        int threads = 8;
+        int contactsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // Every thread adds its own contacts, deletes every other one and searches in between
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < contactsPerThread; i++) {
+                    addressBookList.addContact(new Contact("First" + thread, "Last" + i, "Address", "City" + (i % 5), "State", "Zip", "Phone", "Email"));
+                    addressBookList.searchPersonInCity("City" + (i % 5));
+                }
+                for (int i = 0; i < contactsPerThread; i += 2) {
+                    addressBookList.deleteContact("First" + thread, "Last" + i);
+                    addressBookList.sortByName();
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+
+        // No update was lost and the indexes agree with the contact store
+        assertEquals(threads * contactsPerThread / 2, addressBookList.size());
+        assertEquals(threads * contactsPerThread / 2, addressBookList.getCountByState().get("State"));
+    }
+
+    @Test
+    void testNameSearchByPrefixAndWithTypos() {
+        AddressBookList addressBookList = new AddressBookList();
+        addressBookList.addContact(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "9876543210", "john@mail.com"));
+        addressBookList.addContact(new Contact("Jane", "Doe", "Address2", "City1", "State1", "Zip1", "9123456780", "jane@mail.com"));
+        addressBookList.addContact(new Contact("Alice", "Smith", "Address3", "City2", "State2", "Zip2", "9000000000", "alice@mail.com"));
+
+        assertEquals(2, addressBookList.searchByName("J", 10).size()); // John and Jane, each once
+        assertEquals(1, addressBookList.searchByName("JA", 10).size()); // Jane, by name and email
+        assertEquals(1, addressBookList.searchByName("9876", 10).size()); // John, by phone number
+        assertEquals(new Contact("Alice", "Smith", null, null, null, null, null, null),
+                addressBookList.searchByNameFuzzy("Smiht", 1, 10).get(0)); // Swapped letters
+        assertEquals(0, addressBookList.searchByNameFuzzy("Smyht", 1, 10).size()); // Two typos
+
+        // Deleted contacts are no longer found
+        addressBookList.deleteContact("Alice", "Smith");
+        assertEquals(0, addressBookList.searchByName("alice", 10).size());
+    }
+
+    @Test
+    void testQueryIntersectsIndexesAndPages() {
+        AddressBookList addressBookList = new AddressBookList();
+        addressBookList.addContact(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+        addressBookList.addContact(new Contact("Jane", "Doe", "Address2", "City1", "State2", "Zip2", "Phone2", "Email2"));
+        addressBookList.addContact(new Contact("Alice", "Smith", "Address3", "City1", "State1", "Zip3", "Phone3", "Email3"));
+        addressBookList.addContact(new Contact("Bob", "Brown", "Address4", "City2", "State1", "Zip4", "Phone4", "Email4"));
+
+        ContactQuery query = ContactQuery.where(ContactFilter.equalTo(ContactField.CITY, "City1")
+                        .and(ContactFilter.equalTo(ContactField.STATE, "State1")))
+                .sortBy(ContactField.FIRST_NAME);
+
+        assertEquals(2, addressBookList.count(query)); // John and Alice
+        assertEquals("Alice", ContactField.FIRST_NAME.valueOf(addressBookList.query(query).get(0)));
+        assertEquals("John", ContactField.FIRST_NAME.valueOf(addressBookList.query(query.offset(1).limit(1)).get(0)));
+        assertTrue(addressBookList.explain(query).contains("Intersect")); // Both indexes are used
+
+        // A filter on a field without an index falls back to a scan
+        ContactQuery byLastName = ContactQuery.where(ContactFilter.equalTo(ContactField.LAST_NAME, "Doe"));
+        assertEquals(2, addressBookList.count(byLastName));
+        assertTrue(addressBookList.explain(byLastName).contains("FullScan"));
+    }
+
+    @Test
+    void testPagesFollowCursorAcrossChanges() {
+        AddressBookList addressBookList = new AddressBookList();
+        for (int i = 0; i < 10; i++) {
+            addressBookList.addContact(new Contact("First" + i, "Last" + i, "Address", "City", "State", "Zip", "Phone", "Email"));
+        }
+
+        ContactPage first = addressBookList.pageByName(null, 4);
+        assertEquals(4, first.getContacts().size()); // First0 to First3
+
+        // Deleting the last contact of the page does not shift the next one
+        addressBookList.deleteContact("First3", "Last3");
+        ContactPage second = addressBookList.pageByName(first.getNextCursor(), 4);
+        assertEquals(new Contact("First4", "Last4", null, null, null, null, null, null), second.getContacts().get(0));
+
+        ContactPage last = addressBookList.pageByName(second.getNextCursor(), 4);
+        assertEquals(2, last.getContacts().size()); // First8 and First9
+        assertEquals(null, last.getNextCursor());
+
+        // The stream walks the same pages
+        assertEquals(addressBookList.stream().sorted().collect(Collectors.toList()),
+                addressBookList.streamByName().collect(Collectors.toList()));
+    }
+
+    @Test
+    void testMetricsCountOperations() {
+        AddressBookMetrics metrics = AddressBookMetrics.getDefault();
+        long adds = metrics.getMetric("add.count");
+        long searches = metrics.getMetric("search.count");
+
+        AddressBookList addressBookList = new AddressBookList();
+        addressBookList.addContact(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+        addressBookList.addContact(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+        addressBookList.searchPersonInCity("City1");
+
+        // Metrics are shared by every book, so only the increase is checked
+        assertEquals(adds + 2, metrics.getMetric("add.count")); // Duplicates are timed too
+        assertEquals(searches + 1, metrics.getMetric("search.count"));
+        assertTrue(metrics.getMetric("add.p99Nanos") <= metrics.getMetric("add.maxNanos"));
+    }
 }
@@ -0,0 +1,77 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @desc Test cases for the memory budget kept by AddressBookCache
+ */
+public class AddressBookCacheTest {
+
+    @Test
+    void testLeastRecentlyUsedBookIsUnloadedAndReadBack() throws Exception {
+        String prefix = "CacheTest" + System.nanoTime();
+        new File("Contacts").mkdirs();
+        AddressBookSystem system = new AddressBookSystem(2 * AddressBookCache.ESTIMATED_CONTACT_BYTES);
+        AddressBookMetrics metrics = AddressBookMetrics.getDefault();
+        long unloads = metrics.getMetric("cache.unloads"); // Counts for the cache of this system
+        try {
+            for (int i = 1; i <= 2; i++) {
+                system.createAddressBook(prefix + i);
+                assertTrue(system.getAddressBook(prefix + i).insert(new Contact("First" + i, "Last" + i, "Address" + i,
+                        "City" + i, "State" + i, "Zip" + i, "Phone" + i, "Email" + i)));
+            }
+            AddressBookList first = system.getAddressBook(prefix + 1);
+            AddressBookList second = system.getAddressBook(prefix + 2);
+            assertFalse(first.isUnloaded());
+            assertEquals(unloads, metrics.getMetric("cache.unloads"));
+
+            // A third contact is over the budget, so the least recently used book is saved and unloaded
+            second.find("First2", "Last2");
+            system.createAddressBook(prefix + 3);
+            AddressBookList third = system.getAddressBook(prefix + 3);
+            assertTrue(third.insert(new Contact("First3", "Last3", "Address3", "City3", "State3", "Zip3", "Phone3", "Email3")));
+            system.getAddressBook(prefix + 3);
+            assertTrue(first.isUnloaded());
+            assertFalse(second.isUnloaded());
+            assertEquals(unloads + 1, metrics.getMetric("cache.unloads"));
+            assertTrue(new File("Contacts", prefix + 1 + ".txt").isFile());
+
+            // The same object reads its contacts back on its next use, and another book makes room for it
+            assertSame(first, system.getAddressBook(prefix + 1));
+            Contact contact = first.find("First1", "Last1");
+            assertEquals("City1", contact.getCity());
+            assertEquals(1, first.size());
+            assertFalse(first.isUnloaded());
+            assertTrue(second.isUnloaded());
+            assertEquals(List.of(contact), system.getContactsInCity("City1"));
+        } finally {
+            for (int i = 1; i <= 3; i++) {
+                new File("Contacts", prefix + i + ".txt").delete();
+            }
+        }
+    }
+
+    @Test
+    void testBookOnDiskIsLoadedOnFirstUse() throws Exception {
+        String name = "CacheTest" + System.nanoTime();
+        File file = new File("Contacts", name + ".txt");
+        new File("Contacts").mkdirs();
+        ContactCsvWriter.writeAtomically(file, List.of(
+                new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+        try {
+            AddressBookSystem system = new AddressBookSystem(100 * AddressBookCache.ESTIMATED_CONTACT_BYTES);
+            AddressBookList addressBook = system.getAddressBook(name);
+            assertTrue(addressBook.isUnloaded());
+            assertEquals("City1", addressBook.find("John", "Doe").getCity());
+            assertFalse(addressBook.isUnloaded());
+        } finally {
+            file.delete();
+        }
+    }
+}
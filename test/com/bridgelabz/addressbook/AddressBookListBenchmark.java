@@ -0,0 +1,142 @@
+package com.bridgelabz.addressbook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @desc JMH benchmarks for the hot paths of one AddressBookList, for each dataset size. Each size gets a book of
+ *       synthetic contacts from ContactGenerator. Console messages of the code under test are discarded so they
+ *       do not skew the timings. Sizes up to 1M run by default; 10M needs a large heap, e.g.
+ *       -Djmh.args="AddressBookListBenchmark -p size=10000000 -jvmArgs -Xmx16g".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressBookListBenchmark {
+    // Fresh contacts added and deleted again by the addContact benchmark
+    private static final int FRESH_CONTACTS = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private AddressBookList book;
+    private Contact[] fresh;
+    private Contact[] existing;
+    private String fileName;
+    private File file;
+    private int next;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ContactGenerator generator = new ContactGenerator(42);
+        book = generator.book(size, 0);
+        fresh = new Contact[FRESH_CONTACTS];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = generator.next(size + i);
+        }
+        existing = book.getContacts().subList(0, Math.min(size, FRESH_CONTACTS)).toArray(new Contact[0]);
+        new File("Contacts").mkdirs();
+        fileName = "benchmark-" + size;
+        file = new File("Contacts", fileName + ".txt");
+        book.saveToFile(fileName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void addContact() {
+        // Add a new contact, then delete it again so the book keeps its size
+        Contact contact = fresh[next++ & (FRESH_CONTACTS - 1)];
+        book.addContact(contact);
+        book.deleteContact(contact.firstName, contact.lastName);
+    }
+
+    @Benchmark
+    public void addContactDuplicate() {
+        book.addContact(existing[next++ % existing.length]);
+    }
+
+    @Benchmark
+    public List<Contact> searchPersonInCity() {
+        return book.searchPersonInCity(ContactGenerator.city(next++ % 500));
+    }
+
+    @Benchmark
+    public Map<String, Long> getCountByCity() {
+        return book.getCountByCity();
+    }
+
+    @Benchmark
+    public Map<String, Long> getCountByState() {
+        return book.getCountByState();
+    }
+
+    @Benchmark
+    public void sortByName() {
+        book.sortByName();
+    }
+
+    @Benchmark
+    public List<Contact> sortByZip() {
+        return book.sortByZip();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void saveToFile() {
+        book.saveToFile(fileName);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AddressBookList loadFromFile() {
+        AddressBookList loaded = new AddressBookList();
+        loaded.loadFromFile(fileName);
+        return loaded;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AddressBookList importFromFile() throws IOException {
+        AddressBookList imported = new AddressBookList();
+        imported.importFromFile(file);
+        return imported;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void addAll(Blackhole blackhole) {
+        AddressBookList added = new AddressBookList();
+        blackhole.consume(added.addAll(book.stream()));
+        blackhole.consume(added);
+    }
+}
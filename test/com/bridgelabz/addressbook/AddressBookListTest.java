@@ -0,0 +1,72 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @desc Test cases for the city, state and ZIP code indexes kept by AddressBookList
+ */
+public class AddressBookListTest {
+
+    @Test
+    void testIndexesFollowAddEditAndDelete() {
+        AddressBookList addressBook = new AddressBookList();
+        Contact john = new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1");
+        Contact jane = new Contact("Jane", "Doe", "Address2", "City1", "State1", "Zip2", "Phone2", "Email2");
+        assertTrue(addressBook.insert(john));
+        assertTrue(addressBook.insert(jane));
+        assertEquals(List.of(john, jane), addressBook.searchPersonInCity("City1"));
+        assertEquals(List.of(jane), addressBook.searchPersonInZip("Zip2"));
+        assertEquals(2, addressBook.getCountByState().get("State1"));
+        assertEquals(2, addressBook.indexKeys(ContactField.ZIP));
+
+        // Moving a contact re-indexes it under its new values and drops the emptied keys
+        assertTrue(addressBook.update("John", "Doe", "Address3", "City2", "State2", "Zip1", "Phone1", "Email1"));
+        assertEquals(List.of(jane), addressBook.searchPersonInCity("City1"));
+        assertEquals("Address3", addressBook.searchPersonInCity("City2").get(0).address);
+        assertEquals(1, addressBook.getCountByState().get("State1"));
+        assertEquals(1, addressBook.getCountByState().get("State2"));
+        assertEquals(1, addressBook.searchPersonInZip("Zip1").size());
+
+        assertEquals(jane, addressBook.remove("Jane", "Doe"));
+        assertTrue(addressBook.searchPersonInCity("City1").isEmpty());
+        assertNull(addressBook.getCountByCity().get("City1"));
+        assertEquals(1, addressBook.indexKeys(ContactField.CITY));
+        assertEquals(1, addressBook.indexKeys(ContactField.ZIP));
+    }
+
+    @Test
+    void testImportIndexesEveryContact() throws Exception {
+        File file = Files.createTempFile("import", ".txt").toFile();
+        ContactCsvWriter.writeAtomically(file, List.of(
+                new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"),
+                new Contact("Jane", "Doe", "Address2", "City1", "State2", "Zip2", "Phone2", "Email2"),
+                new Contact("Alice", "Smith", "Address3", "City2", "State2", "Zip2", "Phone3", "Email3")));
+        AddressBookList addressBook = new AddressBookList();
+        assertEquals(3, addressBook.importFromFile(file).getAdded());
+        file.delete();
+
+        assertEquals(2, addressBook.getCountByCity().get("City1"));
+        assertEquals(1, addressBook.getCountByCity().get("City2"));
+        assertEquals(2, addressBook.searchPersonInState("State2").size());
+        assertEquals(2, addressBook.searchPersonInZip("Zip2").size());
+        assertEquals(2, addressBook.indexKeys(ContactField.STATE));
+    }
+
+    @Test
+    void testVersionChangesWithEveryChange() {
+        AddressBookList addressBook = new AddressBookList();
+        long version = addressBook.getVersion();
+        assertTrue(addressBook.insert(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+        assertTrue(addressBook.getVersion() > version);
+        version = addressBook.getVersion();
+        assertEquals(version, addressBook.getVersion()); // Reading it is not a change
+        addressBook.remove("John", "Doe");
+        assertTrue(addressBook.getVersion() > version);
+    }
+}
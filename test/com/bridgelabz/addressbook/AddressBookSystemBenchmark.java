@@ -0,0 +1,64 @@
+package com.bridgelabz.addressbook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @desc JMH benchmarks for the searches and counts of AddressBookSystem across books, for each dataset size. The
+ *       synthetic contacts of ContactGenerator are spread over ten books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressBookSystemBenchmark {
+    private static final int BOOKS = 10;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private AddressBookSystem system;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ContactGenerator generator = new ContactGenerator(42);
+        system = new AddressBookSystem();
+        for (int i = 0; i < BOOKS; i++) {
+            system.createAddressBook("Book" + i);
+            AddressBookList part = system.getAddressBook("Book" + i);
+            for (int j = i; j < size; j += BOOKS) {
+                part.insert(generator.next(j));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Contact> getContactsInCity() {
+        return system.getContactsInCity(ContactGenerator.city(next++ % 500));
+    }
+
+    @Benchmark
+    public Map<String, Long> getCountByCity() {
+        return system.getCountByCity();
+    }
+
+    @Benchmark
+    public Map<String, Long> getCountByState() {
+        return system.getCountByState();
+    }
+}
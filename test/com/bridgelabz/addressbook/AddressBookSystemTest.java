@@ -0,0 +1,136 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @desc Test cases for the City-Person and State-Person dictionaries kept by AddressBookSystem
+ */
+public class AddressBookSystemTest {
+
+    @Test
+    void testDictionariesKeepContactsWithoutCityOrState() {
+        AddressBookSystem system = new AddressBookSystem();
+        system.createAddressBook("Book1");
+        AddressBookList addressBook = system.getAddressBook("Book1");
+
+        assertTrue(addressBook.insert(new Contact("John", "Doe", "Address1", null, null, "Zip1", "Phone1", "Email1")));
+        assertEquals(1, addressBook.size());
+        assertEquals(1, system.getCountByCity().get(null)); // Counted under null, as by the book itself
+        assertEquals(1, system.getCountByState().get(null));
+        assertEquals(1, system.viewPersonsByCity(null).size());
+
+        addressBook.remove("John", "Doe");
+        assertTrue(system.getCountByCity().isEmpty());
+        assertTrue(system.getCountByState().isEmpty());
+    }
+
+    @Test
+    void testCountsArePeopleNotBooks() {
+        AddressBookSystem system = new AddressBookSystem();
+        system.createAddressBook("Book1");
+        system.createAddressBook("Book2");
+        AddressBookList book1 = system.getAddressBook("Book1");
+        AddressBookList book2 = system.getAddressBook("Book2");
+
+        assertTrue(book1.insert(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+        assertTrue(book1.insert(new Contact("Jane", "Doe", "Address2", "City1", "State1", "Zip2", "Phone2", "Email2")));
+        assertTrue(book2.insert(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"))); // Same name in another book
+        assertTrue(book2.insert(new Contact("Alice", "Smith", "Address3", "City2", "State1", "Zip3", "Phone3", "Email3")));
+        assertEquals(3, system.getCountByCity().get("City1"));
+        assertEquals(1, system.getCountByCity().get("City2"));
+        assertEquals(4, system.getCountByState().get("State1"));
+
+        book1.remove("Jane", "Doe");
+        assertEquals(2, system.getCountByCity().get("City1"));
+        assertEquals(3, system.getCountByState().get("State1"));
+
+        assertTrue(book2.update("John", "Doe", "Address4", "City2", "State2", "Zip4", "Phone4", "Email4"));
+        assertEquals(1, system.getCountByCity().get("City1"));
+        assertEquals(2, system.getCountByCity().get("City2"));
+        assertEquals(2, system.getCountByState().get("State1"));
+        assertEquals(1, system.getCountByState().get("State2"));
+
+        book2.remove("Alice", "Smith");
+        book2.remove("John", "Doe");
+        assertEquals(1, system.getCountByCity().size()); // Emptied cities are dropped
+        assertEquals(1, system.getCountByCity().get("City1"));
+    }
+
+    @Test
+    void testViewsAreCurrentWithoutSearching() {
+        AddressBookSystem system = new AddressBookSystem();
+        system.createAddressBook("Book1");
+        system.createAddressBook("Book2");
+        AddressBookList book1 = system.getAddressBook("Book1");
+        AddressBookList book2 = system.getAddressBook("Book2");
+        Contact john = new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1");
+        Contact jane = new Contact("Jane", "Doe", "Address2", "City1", "State2", "Zip2", "Phone2", "Email2");
+        assertTrue(book1.insert(john));
+        assertTrue(book2.insert(jane));
+
+        // Nobody has searched City1, and both books are in the view
+        List<Contact> city1 = system.viewPersonsByCity("City1");
+        assertEquals(2, city1.size());
+        assertTrue(city1.contains(john) && city1.contains(jane));
+        assertEquals(List.of(jane), system.viewPersonsByState("State2"));
+        city1.clear(); // Views are copies
+        assertEquals(2, system.viewPersonsByCity("City1").size());
+
+        assertTrue(book2.update("Jane", "Doe", "Address3", "City2", "State1", "Zip3", "Phone2", "Email2"));
+        assertEquals(List.of(john), system.viewPersonsByCity("City1"));
+        assertEquals("Address3", system.viewPersonsByCity("City2").get(0).address);
+        assertEquals(2, system.viewPersonsByState("State1").size());
+        assertTrue(system.viewPersonsByState("State2").isEmpty());
+
+        book1.remove("John", "Doe");
+        assertTrue(system.viewPersonsByCity("City1").isEmpty());
+        assertEquals(1, system.viewPersonsByState("State1").size());
+    }
+
+    @Test
+    void testLoadAllRegistersEveryBookInContacts() throws Exception {
+        String prefix = "LoadAllTest" + System.nanoTime();
+        new File("Contacts").mkdirs();
+        for (int i = 1; i <= 4; i++) {
+            ContactCsvWriter.writeAtomically(new File("Contacts", prefix + i + ".txt"), List.of(
+                    new Contact("First" + i, "Last" + i, "Address" + i, prefix, "State" + i, "Zip" + i, "Phone" + i, "Email" + i),
+                    new Contact("Other" + i, "Last" + i, "Address" + i, prefix, "State" + i, "Zip" + i, "Phone" + i, "Email" + i)));
+        }
+        try {
+            AddressBookSystem system = new AddressBookSystem();
+            system.createAddressBook(prefix + 4); // Already in the system, so skipped
+            Map<String, IOException> failures = new ConcurrentHashMap<>();
+            List<String> loaded = system.loadAll(4, (addressBook, name) -> {
+                if (!name.startsWith(prefix)) {
+                    return; // Other books saved in Contacts are left empty
+                }
+                if (name.equals(prefix + 3)) {
+                    throw new IOException("Unreadable");
+                }
+                addressBook.load(name);
+            }, failures);
+
+            assertTrue(loaded.containsAll(List.of(prefix + 1, prefix + 2)));
+            assertFalse(loaded.contains(prefix + 3) || loaded.contains(prefix + 4));
+            assertEquals("Unreadable", failures.get(prefix + 3).getMessage());
+            assertTrue(failures.get(prefix + 4) instanceof FileAlreadyExistsException);
+            assertEquals(2, system.getAddressBook(prefix + 1).size());
+            assertEquals(0, system.getAddressBook(prefix + 3).size()); // Left registered but empty
+            assertEquals(0, system.getAddressBook(prefix + 4).size());
+            assertEquals(4, system.getCountByCity().get(prefix)); // The loaded books are in the dictionaries
+        } finally {
+            for (int i = 1; i <= 4; i++) {
+                new File("Contacts", prefix + i + ".txt").delete();
+            }
+        }
+    }
+}
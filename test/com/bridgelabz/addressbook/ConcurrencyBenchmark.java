@@ -0,0 +1,72 @@
+package com.bridgelabz.addressbook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @desc Measures operation throughput of a shared AddressBookSystem under mixed read/write workloads
+ *       with 1 to 64 threads. Usage: ConcurrencyBenchmark [books] [contactsPerBook] [writePercent]
+ */
+public class ConcurrencyBenchmark {
+    private static final int OPERATIONS_PER_THREAD = 200_000;
+
+    public static void main(String[] args) throws Exception {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int contactsPerBook = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        AddressBookSystem system = new AddressBookSystem();
+        ContactGenerator generator = new ContactGenerator(42);
+        ContactGenerator.quietly(() -> {
+            for (int book = 0; book < books; book++) {
+                system.addAddressBook("Book" + book);
+                AddressBookList addressBook = system.getAddressBook("Book" + book);
+                for (int i = 0; i < contactsPerBook; i++) {
+                    addressBook.insert(generator.next(book * contactsPerBook + i));
+                }
+            }
+        });
+
+        System.out.println("Books: " + books + ", contacts per book: " + contactsPerBook + ", writes: " + writePercent + "%");
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> run(system, books, contactsPerBook, writePercent)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            executor.shutdown();
+            System.out.printf("threads=%-3d %,14.0f ops/s%n", threads, threads * (double) OPERATIONS_PER_THREAD / seconds);
+        }
+    }
+
+    /**
+     * @desc Mix of name lookups and city searches, plus deletes immediately followed by re-adds as writes.
+     */
+    private static void run(AddressBookSystem system, int books, int contactsPerBook, int writePercent) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int operation = 0; operation < OPERATIONS_PER_THREAD; operation++) {
+            int book = random.nextInt(books);
+            AddressBookList addressBook = system.getAddressBook("Book" + book);
+            int index = book * contactsPerBook + random.nextInt(contactsPerBook);
+            if (random.nextInt(100) < writePercent) {
+                Contact removed = addressBook.remove("First" + index, "Last" + index);
+                if (removed != null) {
+                    addressBook.insert(removed);
+                }
+            } else if (operation % 2 == 0) {
+                addressBook.contains("First" + index, "Last" + index);
+            } else {
+                addressBook.searchPersonInZip("Z" + random.nextInt(5_000));
+            }
+        }
+    }
+}
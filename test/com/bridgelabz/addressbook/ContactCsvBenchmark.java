@@ -0,0 +1,52 @@
+package com.bridgelabz.addressbook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @desc JMH benchmarks for converting one contact to and from a CSV line. The cost does not depend on the size of
+ *       a book, so a fixed set of synthetic contacts from ContactGenerator is cycled through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContactCsvBenchmark {
+    private static final int CONTACTS = 1024;
+
+    private Contact[] contacts;
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ContactGenerator generator = new ContactGenerator(42);
+        contacts = new Contact[CONTACTS];
+        lines = new String[CONTACTS];
+        for (int i = 0; i < CONTACTS; i++) {
+            contacts[i] = generator.next(i);
+            lines[i] = contacts[i].toCsvString();
+        }
+    }
+
+    @Benchmark
+    public String toCsvString() {
+        return contacts[next++ & (CONTACTS - 1)].toCsvString();
+    }
+
+    @Benchmark
+    public Contact fromCsvString() {
+        return Contact.fromCsvString(lines[next++ & (CONTACTS - 1)]);
+    }
+}
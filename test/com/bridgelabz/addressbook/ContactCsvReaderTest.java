@@ -0,0 +1,47 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @desc Test cases for reading saved Address Books with ContactCsvReader
+ */
+public class ContactCsvReaderTest {
+
+    @Test
+    void testStrayQuoteInUnquotedValueEndsAtLineBreak() throws Exception {
+        // Written by the original saveToFile, which never quoted values
+        String csv = "John,Doe,12 5\" St,City1,State1,Zip1,Phone1,Email1\n"
+                + "Jane,Doe,Address2,City2,State2,Zip2,Phone2,Email2\n"
+                + "Alice,Smith,Address3,City3,State3,Zip3,Phone3,Email3\n";
+        List<Contact> read = readAll(csv, 0);
+        assertEquals(3, read.size());
+        assertEquals("12 5\" St", read.get(0).address);
+        assertEquals("Jane", read.get(1).firstName);
+    }
+
+    @Test
+    void testQuotedFieldsKeepLineBreaksAndQuotes() throws Exception {
+        String csv = "John,Doe,\"Line1\nLine2, \"\"B\"\"\",City1,State1,Zip1,Phone1,Email1\n"
+                + "Jane,Doe,\"\"\"\n\",City2,State2,Zip2,Phone2,Email2\n";
+        List<Contact> read = readAll(csv, 0);
+        assertEquals(2, read.size());
+        assertEquals("Line1\nLine2, \"B\"", read.get(0).address);
+        assertEquals("\"\n", read.get(1).address);
+    }
+
+    private static List<Contact> readAll(String csv, long rejected) throws Exception {
+        List<Contact> read = new ArrayList<>();
+        try (ContactCsvReader reader = new ContactCsvReader(new StringReader(csv))) {
+            Contact contact;
+            while ((contact = reader.next()) != null) {
+                read.add(contact);
+            }
+            assertEquals(rejected, reader.getRejectedRows());
+        }
+        return read;
+    }
+}
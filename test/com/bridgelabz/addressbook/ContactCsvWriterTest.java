@@ -0,0 +1,93 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @desc Test cases for saving Address Books with ContactCsvWriter
+ */
+public class ContactCsvWriterTest {
+
+    @Test
+    void testConcurrentSavesOfOneFileEachWriteWholeFile() throws Exception {
+        File directory = Files.createTempDirectory("contacts").toFile();
+        File file = new File(directory, "Book1.txt");
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int size = 100 + t;
+                saves.add(threads.submit(() -> {
+                    List<Contact> contacts = new ArrayList<>();
+                    for (int i = 0; i < size; i++) {
+                        contacts.add(new Contact("First" + i, "Last" + i, "Address" + i, "City1", "State1", "Zip1", "Phone1", "Email1"));
+                    }
+                    for (int round = 0; round < 20; round++) {
+                        ContactCsvWriter.writeAtomically(file, contacts);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> save : saves) {
+                save.get(); // No save failed
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        // The file is whole: one save's contacts, in order, with no rows from another
+        List<Contact> read = new ArrayList<>();
+        try (ContactCsvReader reader = new ContactCsvReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            Contact contact;
+            while ((contact = reader.next()) != null) {
+                read.add(contact);
+            }
+            assertEquals(0, reader.getRejectedRows());
+        }
+        assertTrue(read.size() >= 100 && read.size() < 108);
+        for (int i = 0; i < read.size(); i++) {
+            assertEquals("First" + i, read.get(i).firstName);
+        }
+        // No temporary file is left behind
+        assertEquals(1, directory.listFiles().length);
+        file.delete();
+        directory.delete();
+    }
+
+    @Test
+    void testSaveKeepsFilePermissions() throws Exception {
+        File directory = Files.createTempDirectory("contacts").toFile();
+        File plain = new File(directory, "Plain.txt");
+        new FileOutputStream(plain).close(); // As the original saveToFile created it
+        File file = new File(directory, "Book1.txt");
+        List<Contact> contacts = List.of(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+
+        ContactCsvWriter.writeAtomically(file, contacts);
+        assertEquals(Files.getPosixFilePermissions(plain.toPath()), Files.getPosixFilePermissions(file.toPath()));
+
+        Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(file.toPath(), shared);
+        ContactCsvWriter.writeAtomically(file, contacts);
+        assertEquals(shared, Files.getPosixFilePermissions(file.toPath()));
+
+        file.delete();
+        plain.delete();
+        directory.delete();
+    }
+}
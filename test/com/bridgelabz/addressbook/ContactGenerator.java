@@ -0,0 +1,81 @@
+package com.bridgelabz.addressbook;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * @desc Generates synthetic contacts for benchmarks. Cities, states and ZIP codes are drawn
+ *       from small pools so the data repeats the way real address books do.
+ */
+public class ContactGenerator {
+    private static final int CITY_COUNT = 500;
+    private static final int STATE_COUNT = 30;
+    private static final int ZIP_COUNT = 5_000;
+
+    private final Random random;
+
+    /**
+     * @desc Constructs a generator with a fixed seed so every run sees the same data.
+     * @param seed The random seed.
+     */
+    public ContactGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+    /**
+     * @desc Creates the contact with the given sequence number. Names are unique per sequence number.
+     * @param index The sequence number of the contact.
+     * @return A new synthetic contact.
+     */
+    public Contact next(int index) {
+        int city = random.nextInt(CITY_COUNT);
+        return new Contact("First" + index, "Last" + index, index + " Main Road",
+                city(city), state(city % STATE_COUNT), "Z" + random.nextInt(ZIP_COUNT),
+                String.valueOf(9_000_000_000L + index), "user" + index + "@mail.com");
+    }
+
+    /**
+     * @desc Builds an address book holding the given number of synthetic contacts.
+     * @param size       The number of contacts.
+     * @param firstIndex  The sequence number of the first contact.
+     * @return The populated address book.
+     */
+    public AddressBookList book(int size, int firstIndex) {
+        AddressBookList addressBook = new AddressBookList();
+        quietly(() -> {
+            for (int i = 0; i < size; i++) {
+                addressBook.addContact(next(firstIndex + i));
+            }
+        });
+        return addressBook;
+    }
+
+    /**
+     * @desc Gets the name of a generated city.
+     */
+    public static String city(int city) {
+        return "City" + city;
+    }
+
+    /**
+     * @desc Gets the name of a generated state.
+     */
+    public static String state(int state) {
+        return "State" + state;
+    }
+
+    /**
+     * @desc Runs an action with System.out discarded, so per-contact console messages do not skew timings.
+     * @param action The action to run.
+     */
+    public static void quietly(Runnable action) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            action.run();
+        } finally {
+            System.setOut(out);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @desc Test cases for replaying the log of a ContactJournal
+ */
+public class ContactJournalTest {
+
+    @Test
+    void testReplayStopsAtZeroFilledTail() throws Exception {
+        String name = "JournalTailTest" + System.nanoTime();
+        new File("Contacts").mkdirs();
+        try {
+            AddressBookList addressBook = new AddressBookList();
+            ContactJournal journal = ContactJournal.open(addressBook, name);
+            assertTrue(addressBook.add(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+            assertTrue(addressBook.add(new Contact("Jane", "Doe", "Address2", "City2", "State2", "Zip2", "Phone2", "Email2")));
+            journal.close();
+
+            // A crash left the end of the segment zero-filled, as when the file system had preallocated it
+            try (FileOutputStream segment = new FileOutputStream(new File("Contacts", name + ".log.1"), true)) {
+                segment.write(new byte[64]);
+            }
+            AddressBookList reopened = new AddressBookList();
+            ContactJournal.open(reopened, name).close();
+            assertEquals(2, reopened.size());
+            assertEquals("City2", reopened.find("Jane", "Doe").getCity());
+        } finally {
+            delete(name);
+        }
+    }
+
+    @Test
+    void testReplayStopsAtUnknownOperationAndUnparseableRecord() throws Exception {
+        String name = "JournalTailTest" + System.nanoTime();
+        new File("Contacts").mkdirs();
+        try {
+            AddressBookList addressBook = new AddressBookList();
+            ContactJournal journal = ContactJournal.open(addressBook, name);
+            assertTrue(addressBook.add(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+            journal.close();
+
+            // Neither an unknown operation nor a record of the wrong shape is replayed as a delete
+            byte[] record = "John,Doe".getBytes(StandardCharsets.UTF_8);
+            try (java.io.DataOutputStream segment = new java.io.DataOutputStream(
+                    new FileOutputStream(new File("Contacts", name + ".log.1"), true))) {
+                segment.write('X');
+                segment.writeInt(record.length);
+                segment.write(record);
+            }
+            try (java.io.DataOutputStream segment = new java.io.DataOutputStream(
+                    new FileOutputStream(new File("Contacts", name + ".log.2")))) {
+                segment.write('D');
+                segment.writeInt(record.length);
+                segment.write(record);
+            }
+            AddressBookList reopened = new AddressBookList();
+            ContactJournal.open(reopened, name).close();
+            assertEquals(1, reopened.size());
+            assertEquals("City1", reopened.find("John", "Doe").getCity());
+            assertNull(reopened.find("Jane", "Doe"));
+        } finally {
+            delete(name);
+        }
+    }
+
+    private static void delete(String name) {
+        File[] files = new File("Contacts").listFiles((directory, file) -> file.startsWith(name + "."));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+}
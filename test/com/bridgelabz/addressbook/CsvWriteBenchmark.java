@@ -0,0 +1,64 @@
+package com.bridgelabz.addressbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @desc Compares CSV write throughput of the previous String.format + PrintWriter path
+ *       with ContactCsvWriter. Usage: CsvWriteBenchmark [contacts]
+ */
+public class CsvWriteBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ContactGenerator generator = new ContactGenerator(42);
+        List<Contact> contacts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            contacts.add(generator.next(i));
+        }
+        File file = File.createTempFile("csv-write-benchmark", ".txt");
+        file.deleteOnExit();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long formatNanos = time(() -> writeWithFormat(contacts, file));
+            long writerNanos = time(() -> writeWithCsvWriter(contacts, file));
+            System.out.printf("round %d: String.format %,12.0f rows/s   ContactCsvWriter %,12.0f rows/s%n",
+                    round, size / (formatNanos / 1e9), size / (writerNanos / 1e9));
+        }
+    }
+
+    private static void writeWithFormat(List<Contact> contacts, File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (Contact c : contacts) {
+                writer.println(String.format("%s,%s,%s,%s,%s,%s,%s,%s",
+                        c.firstName, c.lastName, c.address, c.city, c.state, c.zip, c.phoneNumber, c.email));
+            }
+        }
+    }
+
+    private static void writeWithCsvWriter(List<Contact> contacts, File file) throws IOException {
+        try (ContactCsvWriter writer = new ContactCsvWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (Contact contact : contacts) {
+                writer.write(contact);
+            }
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static long time(IoAction action) throws IOException {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+}
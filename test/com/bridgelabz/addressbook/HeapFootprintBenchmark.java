@@ -0,0 +1,78 @@
+package com.bridgelabz.addressbook;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @desc Measures retained heap per contact for the previous representation, where every row allocated
+ *       its own eight Strings, against contacts read through ContactCsvReader with pooled city, state
+ *       and ZIP code. Usage: HeapFootprintBenchmark [contacts]
+ */
+public class HeapFootprintBenchmark {
+
+    /**
+     * @desc Stand-in for the previous Contact layout: eight independently allocated Strings.
+     */
+    private static final class UnpooledContact {
+        final String firstName, lastName, address, city, state, zip, phoneNumber, email;
+
+        UnpooledContact(String[] fields) {
+            firstName = fields[0];
+            lastName = fields[1];
+            address = fields[2];
+            city = fields[3];
+            state = fields[4];
+            zip = fields[5];
+            phoneNumber = fields[6];
+            email = fields[7];
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String csv = generateCsv(size);
+
+        long before = usedHeap();
+        List<UnpooledContact> unpooled = new ArrayList<>(size);
+        for (String line : csv.split("\n")) {
+            unpooled.add(new UnpooledContact(line.split(",")));
+        }
+        long unpooledBytes = usedHeap() - before;
+        System.out.printf("unpooled: %6.1f bytes/contact (%d contacts)%n", (double) unpooledBytes / unpooled.size(), unpooled.size());
+        unpooled = null;
+
+        before = usedHeap();
+        List<Contact> pooled = new ArrayList<>(size);
+        try (ContactCsvReader reader = new ContactCsvReader(new StringReader(csv))) {
+            Contact contact;
+            while ((contact = reader.next()) != null) {
+                pooled.add(contact);
+            }
+        }
+        long pooledBytes = usedHeap() - before;
+        System.out.printf("pooled:   %6.1f bytes/contact (%d contacts, %d pooled strings)%n",
+                (double) pooledBytes / pooled.size(), pooled.size(), StringPool.LOCATIONS.size());
+    }
+
+    private static String generateCsv(int size) throws IOException {
+        ContactGenerator generator = new ContactGenerator(42);
+        StringWriter csv = new StringWriter(size * 80);
+        try (ContactCsvWriter writer = new ContactCsvWriter(csv)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(generator.next(i));
+            }
+        }
+        return csv.toString();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,186 @@
+package com.bridgelabz.addressbook;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @desc Load test for AddressBookServer over localhost. Starts a server in this JVM on a free port, unless the
+ *       base URL of a running one is given, fills an Address Book through the batch endpoint, then runs client
+ *       threads that send a mix of lookups, name searches, city searches and single inserts for a fixed time
+ *       over keep-alive connections. Prints the requests per second and the latency percentiles of each kind for
+ *       each round; the first rounds include the JIT compiling the server and the client.
+ *       Usage: HttpLoadBenchmark [clients] [seconds] [contacts] [baseUrl]
+ */
+public class HttpLoadBenchmark {
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ROUNDS = 3;
+
+    private enum Kind {
+        // Weights out of 100
+        GET_CONTACT(80), SEARCH_NAME(10), SEARCH_CITY(5), ADD_CONTACT(5);
+
+        private final int weight;
+
+        Kind(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int contacts = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        String baseUrl = args.length > 3 ? args[3] : null;
+
+        AddressBookServer server = null;
+        if (baseUrl == null) {
+            server = new AddressBookServer(new AddressBookService(), new InetSocketAddress("localhost", 0));
+            server.start();
+            baseUrl = "http://localhost:" + server.getPort();
+            System.out.println("Server on " + baseUrl + (server.usesVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+        }
+        String book = "LoadTest" + System.currentTimeMillis();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(Math.max(2, clients)))
+                .build();
+        try {
+            check(send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/books"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"" + book + "\"}"))), 201);
+            fill(client, baseUrl + "/books/" + book + "/contacts", contacts);
+            AtomicInteger nextNew = new AtomicInteger(contacts);
+            for (int round = 0; round < ROUNDS; round++) {
+                System.out.print("round " + round + ": ");
+                run(client, baseUrl, book, clients, seconds, contacts, nextNew);
+            }
+        } finally {
+            if (server != null) {
+                server.stop(0);
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * @desc Adds the contacts in batches and reports how fast the batch endpoint takes them.
+     */
+    private static void fill(HttpClient client, String url, int contacts) throws Exception {
+        ContactGenerator generator = new ContactGenerator(42);
+        long start = System.nanoTime();
+        for (int from = 0; from < contacts; from += BATCH_SIZE) {
+            List<Contact> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = from; i < Math.min(contacts, from + BATCH_SIZE); i++) {
+                batch.add(generator.next(i));
+            }
+            check(send(client, HttpRequest.newBuilder(URI.create(url))
+                    .POST(HttpRequest.BodyPublishers.ofString(Json.write(batch)))), 200);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Batch insert: %,d contacts in batches of %,d in %.1f s, %,.0f contacts/s%n",
+                contacts, BATCH_SIZE, elapsed, contacts / elapsed);
+    }
+
+    private static void run(HttpClient client, String baseUrl, String book, int clients, int seconds, int contacts,
+                            AtomicInteger nextNew) throws Exception {
+        Map<Kind, LatencyHistogram> latencies = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            latencies.put(kind, new LatencyHistogram());
+        }
+        AtomicInteger errors = new AtomicInteger();
+        String bookUrl = baseUrl + "/books/" + book;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        List<Future<?>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            results.add(threads.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                ContactGenerator generator = new ContactGenerator(random.nextLong());
+                while (System.nanoTime() < end) {
+                    Kind kind = pick(random.nextInt(100));
+                    HttpRequest.Builder request;
+                    int expected = 200;
+                    int i = random.nextInt(contacts);
+                    switch (kind) {
+                        case GET_CONTACT:
+                            request = HttpRequest.newBuilder(URI.create(bookUrl + "/contacts/First" + i + "/Last" + i));
+                            break;
+                        case SEARCH_NAME:
+                            request = HttpRequest.newBuilder(URI.create(bookUrl + "/search?limit=10&prefix=last" + i));
+                            break;
+                        case SEARCH_CITY:
+                            request = HttpRequest.newBuilder(URI.create(baseUrl + "/search?city="
+                                    + ContactGenerator.city(random.nextInt(500))));
+                            break;
+                        default:
+                            request = HttpRequest.newBuilder(URI.create(bookUrl + "/contacts"))
+                                    .POST(HttpRequest.BodyPublishers.ofString(Json.write(generator.next(nextNew.getAndIncrement()))));
+                            expected = 201;
+                    }
+                    long sent = System.nanoTime();
+                    HttpResponse<String> response = send(client, request);
+                    latencies.get(kind).record(System.nanoTime() - sent);
+                    if (response.statusCode() != expected) {
+                        errors.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        threads.shutdown();
+
+        long total = 0;
+        for (LatencyHistogram histogram : latencies.values()) {
+            total += histogram.count();
+        }
+        System.out.printf("%d clients for %.1f s: %,d requests, %,.0f requests/s, %d errors%n",
+                clients, elapsed, total, total / elapsed, errors.get());
+        System.out.printf("%-12s %12s %10s %10s %10s%n", "Request", "Count", "p50 us", "p99 us", "max us");
+        for (Map.Entry<Kind, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            System.out.printf("%-12s %,12d %,10d %,10d %,10d%n", entry.getKey(), histogram.count(),
+                    histogram.percentileNanos(50) / 1000, histogram.percentileNanos(99) / 1000,
+                    histogram.maxNanos() / 1000);
+        }
+    }
+
+    private static Kind pick(int roll) {
+        for (Kind kind : Kind.values()) {
+            if (roll < kind.weight) {
+                return kind;
+            }
+            roll -= kind.weight;
+        }
+        return Kind.GET_CONTACT;
+    }
+
+    private static HttpResponse<String> send(HttpClient client, HttpRequest.Builder request)
+            throws IOException, InterruptedException {
+        return client.send(request.header("Content-Type", "application/json").build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void check(HttpResponse<String> response, int expected) {
+        if (response.statusCode() != expected) {
+            throw new IllegalStateException("Expected " + expected + " but got " + response.statusCode() + ": " + response.body());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @desc Test cases for the binary address book files read by MappedAddressBook
+ */
+public class MappedAddressBookTest {
+
+    @Test
+    void testConvertMapAndFindRoundTrip() throws Exception {
+        Path directory = Files.createTempDirectory("mapped");
+        File csv = directory.resolve("Book1.txt").toFile();
+        Path binary = directory.resolve("Book1.abk");
+        ContactCsvWriter.writeAtomically(csv, List.of(
+                new Contact("John", "Doe", "12, Main Road", "City1", "State1", "Zip1", "Phone1", "Email1"),
+                new Contact("Jane", "Doe", "Address2", "City2", "State1", "Zip2", "Phone2", "Email2"),
+                new Contact("John", "Doe", "Address3", "City3", "State3", "Zip3", "Phone3", "Email3"))); // Duplicate row
+
+        assertEquals(2, AddressBookFileConverter.csvToBinary(csv.toPath(), binary));
+        try (MappedAddressBook book = MappedAddressBook.open(binary)) {
+            assertEquals(2, book.size());
+            Contact john = book.find("John", "Doe");
+            assertEquals("12, Main Road", john.address);
+            assertEquals("City1", john.getCity());
+            assertNull(book.find("Alice", "Doe"));
+            assertNull(book.find(null, "Doe"));
+            assertEquals(2, book.searchPersonInState("State1").size());
+        }
+
+        // Back to CSV, the rows are the same as the first of each name
+        File back = directory.resolve("Back.txt").toFile();
+        assertEquals(2, AddressBookFileConverter.binaryToCsv(binary, back.toPath()));
+        assertEquals(List.of("John,Doe,\"12, Main Road\",City1,State1,Zip1,Phone1,Email1", "Jane,Doe,Address2,City2,State1,Zip2,Phone2,Email2"),
+                Files.readAllLines(back.toPath()));
+        for (File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        directory.toFile().delete();
+    }
+
+    @Test
+    void testNullFieldsRoundTrip() throws Exception {
+        Path binary = Files.createTempFile("mapped", ".abk");
+        MappedAddressBook.write(binary, List.of(new Contact("John", null, null, null, "State1", "Zip1", "Phone1", "")));
+        try (MappedAddressBook book = MappedAddressBook.open(binary)) {
+            Contact john = book.find("John", null);
+            assertNull(john.lastName);
+            assertNull(john.address);
+            assertEquals("", john.email);
+            assertEquals(1, book.searchPersonInCity(null).size());
+        }
+        Files.delete(binary);
+    }
+
+    @Test
+    void testBookLoadsFromNewerBinaryFile() throws Exception {
+        String name = "MappedLoadTest" + System.nanoTime();
+        File csv = new File("Contacts", name + ".txt");
+        File binary = new File("Contacts", name + ".abk");
+        new File("Contacts").mkdirs();
+        ContactCsvWriter.writeAtomically(csv, List.of(
+                new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1")));
+        Path converted = Files.createTempFile("converted", ".txt");
+        ContactCsvWriter.writeAtomically(converted.toFile(), List.of(
+                new Contact("Jane", "Doe", "Address2", "City2", "State2", "Zip2", "Phone2", "Email2"),
+                new Contact("Alice", "Smith", "Address3", "City2", "State3", "Zip3", "Phone3", "Email3")));
+        AddressBookFileConverter.csvToBinary(converted, binary.toPath());
+        Files.delete(converted);
+        long now = System.currentTimeMillis();
+        assertTrue(csv.setLastModified(now - 10_000));
+        assertTrue(binary.setLastModified(now - 5_000));
+
+        // The binary file is newer, so it is read instead of the CSV file
+        AddressBookList addressBook = new AddressBookList();
+        ImportSummary summary = addressBook.load(name);
+        assertEquals(2, summary.getAdded());
+        assertEquals(2, addressBook.getCountByCity().get("City2"));
+        assertNull(addressBook.find("John", "Doe"));
+
+        // Saving writes the CSV file, which is then the newer one
+        addressBook.delete("Alice", "Smith");
+        addressBook.save(name);
+        AddressBookList reloaded = new AddressBookList();
+        reloaded.load(name);
+        assertEquals(1, reloaded.size());
+        assertEquals("City2", reloaded.find("Jane", "Doe").getCity());
+
+        csv.delete();
+        binary.delete();
+    }
+
+    @Test
+    void testIncompleteBinaryFileIsPassedOverForCsvFile() throws Exception {
+        String name = "MappedLoadTest" + System.nanoTime();
+        File csv = new File("Contacts", name + ".txt");
+        File binary = new File("Contacts", name + ".abk");
+        new File("Contacts").mkdirs();
+        List<Contact> contacts = List.of(new Contact("John", "Doe", "Address1", "City1", "State1", "Zip1", "Phone1", "Email1"));
+        ContactCsvWriter.writeAtomically(csv, contacts);
+        MappedAddressBook.write(binary.toPath(), contacts);
+        assertEquals(2, new File("Contacts").listFiles((directory, file) -> file.startsWith(name)).length); // No temporary file left
+
+        // A binary file cut short after its records, as by a crash while writing it
+        byte[] bytes = Files.readAllBytes(binary.toPath());
+        Files.write(binary.toPath(), Arrays.copyOf(bytes, bytes.length - Integer.BYTES));
+        assertThrows(IOException.class, () -> MappedAddressBook.open(binary.toPath()));
+        assertTrue(csv.setLastModified(System.currentTimeMillis() - 10_000));
+
+        AddressBookList addressBook = new AddressBookList();
+        assertEquals(1, addressBook.load(name).getAdded());
+        assertEquals("City1", addressBook.find("John", "Doe").getCity());
+
+        csv.delete();
+        binary.delete();
+    }
+}
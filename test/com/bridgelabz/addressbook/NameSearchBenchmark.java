@@ -0,0 +1,64 @@
+package com.bridgelabz.addressbook;
+
+import java.util.Random;
+
+/**
+ * @desc Measures prefix and fuzzy name search latency. The trie is filled directly, without the other
+ *       indexes of an address book, so that 10M contacts fit in a few GB of heap (run with -Xmx12g or so).
+ *       Usage: NameSearchBenchmark [contacts] [limit]
+ */
+public class NameSearchBenchmark {
+    private static final int WARMUP_QUERIES = 20_000;
+    private static final int MEASURED_QUERIES = 20_000;
+
+    public static void main(String[] args) {
+        int contacts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int limit = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        ContactGenerator generator = new ContactGenerator(42);
+        NameSearchIndex index = new NameSearchIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < contacts; i++) {
+            index.add(generator.next(i));
+        }
+        System.out.printf("Indexed %d contacts in %.1f s%n", contacts, (System.nanoTime() - start) / 1e9);
+
+        Random random = new Random(7);
+        for (int distance = -1; distance <= AddressBookList.MAX_EDIT_DISTANCE; distance++) {
+            for (int i = 0; i < WARMUP_QUERIES; i++) {
+                search(index, query(random, contacts), distance, limit);
+            }
+            long found = 0;
+            long worst = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < MEASURED_QUERIES; i++) {
+                long queryStart = System.nanoTime();
+                found += search(index, query(random, contacts), distance, limit);
+                worst = Math.max(worst, System.nanoTime() - queryStart);
+            }
+            double micros = (System.nanoTime() - start) / 1_000.0 / MEASURED_QUERIES;
+            System.out.printf("%-10s %8.1f us/query, worst %8.1f us (%.1f results)%n",
+                    distance < 0 ? "prefix" : "fuzzy d=" + distance, micros, worst / 1_000.0, (double) found / MEASURED_QUERIES);
+        }
+    }
+
+    /**
+     * @desc Builds a query from a random generated name with one typo: a swapped pair of letters.
+     */
+    private static String query(Random random, int contacts) {
+        char[] name = ("Last" + random.nextInt(contacts)).toCharArray();
+        int position = random.nextInt(name.length - 1);
+        char swapped = name[position];
+        name[position] = name[position + 1];
+        name[position + 1] = swapped;
+        return new String(name);
+    }
+
+    private static int search(NameSearchIndex index, String query, int distance, int limit) {
+        if (distance < 0) {
+            // The first letters of a name as typed into a search box, without the typo
+            return index.searchPrefix("last" + query.replaceAll("[^0-9]", "").substring(0, 1), limit).size();
+        }
+        return index.searchFuzzy(query, distance, limit).size();
+    }
+}
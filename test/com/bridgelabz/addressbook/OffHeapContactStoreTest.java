@@ -0,0 +1,134 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @desc Test cases for the off-heap contact records of OffHeapContactStore, on their own and behind an AddressBookList
+ */
+public class OffHeapContactStoreTest {
+
+    @Test
+    void testAddEditAndDelete() {
+        OffHeapContactStore store = new OffHeapContactStore(4096);
+
+        assertTrue(store.addContact(contact(1, "City1")));
+        assertFalse(store.addContact(contact(1, "City2"))); // Duplicate name
+        assertTrue(store.addContact(contact(2, "City1")));
+        assertEquals(2, store.size());
+
+        assertTrue(store.editContact("First1", "Last1", "Address9", "City3", "State3", "Zip3", "Phone3", "Email3"));
+        assertFalse(store.editContact("First9", "Last9", "Address9", "City3", "State3", "Zip3", "Phone3", "Email3"));
+        assertEquals("City3", store.getContact("First1", "Last1").getCity());
+        assertEquals(1, store.searchPersonInCity("City1").size());
+        assertEquals(1, store.getCountByCity().get("City3"));
+
+        assertEquals("First2", store.deleteContact("First2", "Last2").firstName);
+        assertNull(store.deleteContact("First2", "Last2"));
+        assertNull(store.getContact("First2", "Last2"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testNullFieldsRoundTrip() {
+        OffHeapContactStore store = new OffHeapContactStore(4096);
+        store.addContact(new Contact("John", "Doe", null, "City1", null, "Zip1", "", null));
+
+        Contact stored = store.getContact("John", "Doe");
+        assertNull(stored.address);
+        assertNull(stored.getState());
+        assertNull(stored.email);
+        assertEquals("", stored.phoneNumber);
+        assertEquals(1, store.getCountByState().get(null));
+    }
+
+    @Test
+    void testCompactionReclaimsDeletedRecords() {
+        // Small slabs, so a few hundred edits leave more dead records than live ones
+        OffHeapContactStore store = new OffHeapContactStore(1024);
+        for (int i = 0; i < 20; i++) {
+            store.addContact(contact(i, "City0"));
+        }
+        for (int round = 1; round <= 100; round++) {
+            for (int i = 0; i < 20; i++) {
+                store.put(contact(i, "City" + round));
+            }
+        }
+
+        assertEquals(20, store.size());
+        assertEquals(20, store.searchPersonInCity("City100").size());
+        // The records of the last round fit in a few slabs; without compaction 2,000 records would be kept
+        assertTrue(store.getOffHeapBytes() < 16 * 1024);
+        for (int i = 0; i < 20; i++) {
+            assertEquals("City100", store.getContact("First" + i, "Last" + i).getCity());
+        }
+    }
+
+    @Test
+    void testRehashKeepsEveryName() {
+        OffHeapContactStore store = new OffHeapContactStore(64 * 1024);
+        // The name index starts with 1,024 slots and doubles past half full
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(store.addContact(contact(i, "City1")));
+        }
+        for (int i = 0; i < 5_000; i += 2) {
+            store.deleteContact("First" + i, "Last" + i);
+        }
+        // Adding again reuses and rehashes away the deleted slots
+        for (int i = 5_000; i < 7_000; i++) {
+            assertTrue(store.addContact(contact(i, "City1")));
+        }
+
+        assertEquals(4_500, store.size());
+        for (int i = 0; i < 7_000; i++) {
+            boolean deleted = i < 5_000 && i % 2 == 0;
+            assertEquals(!deleted, store.contains("First" + i, "Last" + i));
+        }
+    }
+
+    @Test
+    void testAddressBookKeepsContactsOffHeap() {
+        OffHeapContactStore store = new OffHeapContactStore(4096);
+        AddressBookList addressBook = new AddressBookList(store);
+        // Listeners such as the system's dictionaries hold contacts by identity
+        Set<Contact> listened = Collections.newSetFromMap(new IdentityHashMap<>());
+        addressBook.addListener(new AddressBookListener() {
+            @Override
+            public void contactAdded(Contact contact) {
+                listened.add(contact);
+            }
+
+            @Override
+            public void contactRemoved(Contact contact) {
+                assertTrue(listened.remove(contact));
+            }
+        });
+
+        assertTrue(addressBook.add(contact(1, "City1")));
+        assertTrue(addressBook.add(contact(2, "City1")));
+        assertFalse(addressBook.add(contact(1, "City2")));
+        assertTrue(addressBook.edit("First1", "Last1", new ContactUpdate("Address9", "City2", "State2", "Zip2", "Phone2", "Email2")));
+        assertTrue(addressBook.delete("First2", "Last2"));
+
+        assertEquals(1, store.size());
+        assertEquals("City2", store.getContact("First1", "Last1").getCity());
+        assertEquals(1, addressBook.getCountByCity().get("City2"));
+        assertEquals(null, addressBook.getCountByCity().get("City1"));
+        assertEquals(1, listened.size());
+
+        List<Contact> contacts = new ArrayList<>(addressBook.getContacts());
+        assertEquals("Address9", contacts.get(0).address);
+    }
+
+    private static Contact contact(int i, String city) {
+        return new Contact("First" + i, "Last" + i, "Address" + i, city, "State1", "Zip1", "Phone" + i, "Email" + i);
+    }
+}
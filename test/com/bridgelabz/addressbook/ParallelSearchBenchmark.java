@@ -0,0 +1,60 @@
+package com.bridgelabz.addressbook;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * @desc Measures how cross-book city searches scale with the number of worker threads.
+ *       Usage: ParallelSearchBenchmark [books] [contactsPerBook]
+ */
+public class ParallelSearchBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int contactsPerBook = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("Books: " + books + ", contacts per book: " + contactsPerBook + ", cores: " + cores);
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            // A threshold of 1 forces the parallel path; one thread is the sequential baseline
+            AddressBookSystem system = populate(new AddressBookSystem(pool, threads == 1 ? Integer.MAX_VALUE : 1),
+                    books, contactsPerBook);
+
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                searchEveryCity(system);
+            }
+            long start = System.nanoTime();
+            long found = 0;
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                found += searchEveryCity(system);
+            }
+            double millis = (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+            System.out.printf("threads=%-3d %10.2f ms/round (%d results)%n", threads, millis, found / MEASURED_ROUNDS);
+            pool.shutdown();
+        }
+    }
+
+    private static AddressBookSystem populate(AddressBookSystem system, int books, int contactsPerBook) {
+        ContactGenerator generator = new ContactGenerator(42);
+        ContactGenerator.quietly(() -> {
+            for (int book = 0; book < books; book++) {
+                system.addAddressBook("Book" + book);
+                AddressBookList addressBook = system.getAddressBook("Book" + book);
+                for (int i = 0; i < contactsPerBook; i++) {
+                    addressBook.addContact(generator.next(book * contactsPerBook + i));
+                }
+            }
+        });
+        return system;
+    }
+
+    private static long searchEveryCity(AddressBookSystem system) {
+        long found = 0;
+        for (int city = 0; city < 50; city++) {
+            found += system.getContactsInCity(ContactGenerator.city(city)).size();
+        }
+        return found;
+    }
+}
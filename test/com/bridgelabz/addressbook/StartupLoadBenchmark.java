@@ -0,0 +1,55 @@
+package com.bridgelabz.addressbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @desc Measures how long AddressBookSystem.loadAllAddressBooks takes to load a Contacts directory holding
+ *       many books, for each number of loader threads given. The books are written to the Contacts directory
+ *       under the working directory first, so run it from an empty directory.
+ *       Usage: StartupLoadBenchmark [books] [contacts per book] [threads...]
+ */
+public class StartupLoadBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int contactsPerBook = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            threadCounts.add(Integer.parseInt(args[i]));
+        }
+        if (threadCounts.isEmpty()) {
+            threadCounts.add(1);
+            threadCounts.add(Runtime.getRuntime().availableProcessors());
+        }
+
+        File directory = new File("Contacts");
+        if (!directory.isDirectory() && !directory.mkdir()) {
+            throw new IOException("Cannot create " + directory.getAbsolutePath());
+        }
+        ContactGenerator generator = new ContactGenerator(42);
+        for (int book = 0; book < books; book++) {
+            List<Contact> contacts = new ArrayList<>(contactsPerBook);
+            for (int i = 0; i < contactsPerBook; i++) {
+                contacts.add(generator.next(book * contactsPerBook + i));
+            }
+            ContactCsvWriter.writeAtomically(new File(directory, "Book" + book + ".txt"), contacts);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int threads : threadCounts) {
+                AddressBookSystem system = new AddressBookSystem();
+                List<List<String>> loaded = new ArrayList<>();
+                long start = System.nanoTime();
+                ContactGenerator.quietly(() -> loaded.add(system.loadAllAddressBooks(threads)));
+                long nanos = System.nanoTime() - start;
+                System.out.printf("round %d: %3d threads  %,6d books  %,10.0f ms  %,12.0f contacts/s%n",
+                        round, threads, loaded.get(0).size(), nanos / 1e6,
+                        (double) books * contactsPerBook / (nanos / 1e9));
+            }
+        }
+    }
+}
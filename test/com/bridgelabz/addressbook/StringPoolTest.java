@@ -0,0 +1,21 @@
+package com.bridgelabz.addressbook;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @desc Test cases for the canonical strings of StringPool
+ */
+public class StringPoolTest {
+
+    @Test
+    void testInternSharesEqualStrings() {
+        StringPool pool = new StringPool();
+        String city = pool.intern(new String("City1"));
+
+        assertSame(city, pool.intern(new String("City1")));
+        assertSame(city, pool.intern("xCity1".toCharArray(), 1, 5, new String[16]));
+        assertEquals(1, pool.size());
+    }
+}